@@ -0,0 +1,132 @@
+package com.inputforge.dbx.benchmarks;
+
+import com.inputforge.dbx.DaoFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares generated DAO methods with the JDBC code one would write by hand. The hand-written
+ * side prepares its statements once, matching the DAO's statement cache.
+ */
+@State(Scope.Thread)
+public class DaoBenchmark {
+    @Param("1000")
+    int users;
+
+    @Param("100")
+    int rows;
+
+    private Connection connection;
+    private UserDao dao;
+    private PreparedStatement getUserById;
+    private PreparedStatement countUsers;
+    private PreparedStatement getUserIds;
+    private PreparedStatement getUsers;
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = Database.open("bench", users);
+        dao = DaoFactory.create(UserDao.class, connection);
+        getUserById = connection.prepareStatement(
+                "SELECT id, first_name, last_name, email, is_active, created_at FROM users WHERE id = ?");
+        countUsers = connection.prepareStatement("SELECT count(*) FROM users WHERE is_active = ?");
+        getUserIds = connection.prepareStatement("SELECT id FROM users");
+        getUsers = connection.prepareStatement(
+                "SELECT id, first_name, last_name, email, is_active, created_at FROM users WHERE id <= ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    private long nextId() {
+        nextId = nextId % users + 1;
+        return nextId;
+    }
+
+    @Benchmark
+    public User getUserById_dbx() {
+        return dao.getUserById(nextId());
+    }
+
+    @Benchmark
+    public User getUserById_jdbc() throws SQLException {
+        getUserById.setLong(1, nextId());
+        try (var resultSet = getUserById.executeQuery()) {
+            return resultSet.next() ? readUser(resultSet) : null;
+        }
+    }
+
+    @Benchmark
+    public int countUsers_dbx() {
+        return dao.countUsers(true);
+    }
+
+    @Benchmark
+    public int countUsers_jdbc() throws SQLException {
+        countUsers.setBoolean(1, true);
+        try (var resultSet = countUsers.executeQuery()) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    @Benchmark
+    public List<Integer> getUserIds_dbx() {
+        return dao.getUserIds();
+    }
+
+    @Benchmark
+    public List<Integer> getUserIds_jdbc() throws SQLException {
+        try (var resultSet = getUserIds.executeQuery()) {
+            var ids = new ArrayList<Integer>();
+            while (resultSet.next()) {
+                ids.add(resultSet.getInt(1));
+            }
+            return ids;
+        }
+    }
+
+    @Benchmark
+    public List<User> getUsers_dbx() {
+        return dao.getUsers(rows);
+    }
+
+    @Benchmark
+    public List<User> getUsers_jdbc() throws SQLException {
+        getUsers.setLong(1, rows);
+        try (var resultSet = getUsers.executeQuery()) {
+            var result = new ArrayList<User>();
+            while (resultSet.next()) {
+                result.add(readUser(resultSet));
+            }
+            return result;
+        }
+    }
+
+    private static User readUser(ResultSet resultSet) throws SQLException {
+        var createdAt = resultSet.getTimestamp(6);
+        return new User(
+                resultSet.getLong(1),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getString(4),
+                resultSet.getBoolean(5),
+                createdAt == null ? null : createdAt.toInstant()
+        );
+    }
+}
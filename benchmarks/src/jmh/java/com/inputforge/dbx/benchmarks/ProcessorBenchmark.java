@@ -0,0 +1,160 @@
+package com.inputforge.dbx.benchmarks;
+
+import com.inputforge.dbx.DbxAnnotationProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the build time the processor adds, compiling a generated corpus of DAOs with
+ * processing only, with processing and code generation, and without the processor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProcessorBenchmark {
+    private static final int DAOS_PER_PACKAGE = 100;
+
+    @Param({"1000", "3000"})
+    int daos;
+
+    private Path corpus;
+    private Path output;
+    private List<Path> sources;
+
+    @Setup(Level.Trial)
+    public void writeCorpus() throws IOException {
+        corpus = Files.createTempDirectory("dbx-corpus");
+        sources = new ArrayList<>();
+        for (int i = 0; i < daos; i++) {
+            var packageName = "corpus.p" + i / DAOS_PER_PACKAGE;
+            var directory = Files.createDirectories(corpus.resolve(packageName.replace('.', '/')));
+            if (i % DAOS_PER_PACKAGE == 0) {
+                sources.add(Files.writeString(directory.resolve("Item.java"), item(packageName)));
+            }
+            sources.add(Files.writeString(directory.resolve("ItemDao" + i + ".java"), dao(packageName, i)));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void cleanOutput() throws IOException {
+        output = Files.createTempDirectory("dbx-output");
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteOutput() {
+        delete(output);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCorpus() {
+        delete(corpus);
+    }
+
+    @Benchmark
+    public boolean processOnly() throws IOException {
+        return compile("-proc:only");
+    }
+
+    @Benchmark
+    public boolean compileWithProcessor() throws IOException {
+        return compile();
+    }
+
+    @Benchmark
+    public boolean compileWithoutProcessor() throws IOException {
+        return compile("-proc:none");
+    }
+
+    private boolean compile(String... options) throws IOException {
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        var diagnostics = new DiagnosticCollector<JavaFileObject>();
+        try (var files = compiler.getStandardFileManager(diagnostics, null, null)) {
+            var arguments = new ArrayList<>(List.of(
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-d", output.toString(),
+                    "-s", Files.createDirectories(output.resolve("generated")).toString(),
+                    "-implicit:none"));
+            arguments.addAll(List.of(options));
+            var task = compiler.getTask(null, files, diagnostics, arguments, null,
+                    files.getJavaFileObjectsFromPaths(sources));
+            task.setProcessors(List.of(new DbxAnnotationProcessor()));
+            if (!task.call()) {
+                throw new IllegalStateException("Corpus does not compile: " + diagnostics.getDiagnostics()
+                        .stream()
+                        .limit(5)
+                        .map(Object::toString)
+                        .collect(Collectors.joining("\n")));
+            }
+            return true;
+        }
+    }
+
+    private static String item(String packageName) {
+        return "package " + packageName + ";\n\n"
+                + "public final class Item {\n"
+                + "    public final long id;\n"
+                + "    public final String name;\n"
+                + "    public final boolean active;\n"
+                + "    public final java.time.Instant createdAt;\n\n"
+                + "    public Item(long id, String name, boolean active, java.time.Instant createdAt) {\n"
+                + "        this.id = id;\n"
+                + "        this.name = name;\n"
+                + "        this.active = active;\n"
+                + "        this.createdAt = createdAt;\n"
+                + "    }\n"
+                + "}\n";
+    }
+
+    private static String dao(String packageName, int index) {
+        var table = "items_" + index;
+        return "package " + packageName + ";\n\n"
+                + "import com.inputforge.dbx.Cached;\n"
+                + "import com.inputforge.dbx.Dao;\n"
+                + "import com.inputforge.dbx.Query;\n\n"
+                + "@Dao\n"
+                + "public interface ItemDao" + index + " {\n"
+                + "    @Cached\n"
+                + "    @Query(\"SELECT * FROM " + table + " WHERE id = ?\")\n"
+                + "    Item getItem(long id);\n\n"
+                + "    @Query(\"SELECT * FROM " + table + " WHERE id IN (?)\")\n"
+                + "    java.util.List<Item> getItems(java.util.Collection<Long> ids);\n\n"
+                + "    @Query(\"SELECT id FROM " + table + " WHERE active = ?\")\n"
+                + "    long[] getIds(boolean active);\n\n"
+                + "    @Query(\"SELECT count(*) FROM " + table + "\")\n"
+                + "    int countItems();\n\n"
+                + "    @Query(\"UPDATE " + table + " SET name = :name WHERE id = :id\")\n"
+                + "    int rename(long id, String name);\n"
+                + "}\n";
+    }
+
+    private static void delete(Path directory) {
+        try (var paths = Files.walk(directory)) {
+            for (var path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.inputforge.dbx.benchmarks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * In-memory H2 database holding the {@code users} table the benchmarks query.
+ */
+public final class Database {
+    private Database() {
+    }
+
+    public static Connection open(String name, int users) throws SQLException {
+        var connection = DriverManager.getConnection("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        try (var statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS users");
+            statement.execute("CREATE TABLE users ("
+                    + "id BIGINT PRIMARY KEY, "
+                    + "first_name VARCHAR(64), "
+                    + "last_name VARCHAR(64), "
+                    + "email VARCHAR(128), "
+                    + "is_active BOOLEAN, "
+                    + "created_at TIMESTAMP)");
+        }
+
+        try (var insert = connection.prepareStatement("INSERT INTO users VALUES (?, ?, ?, ?, ?, ?)")) {
+            var createdAt = Timestamp.from(Instant.parse("2023-01-01T00:00:00Z"));
+            for (int id = 1; id <= users; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, "First" + id);
+                insert.setString(3, "Last" + id);
+                insert.setString(4, "user" + id + "@example.com");
+                insert.setBoolean(5, id % 2 == 0);
+                insert.setTimestamp(6, createdAt);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        return connection;
+    }
+}
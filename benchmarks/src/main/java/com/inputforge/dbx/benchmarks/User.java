@@ -0,0 +1,45 @@
+package com.inputforge.dbx.benchmarks;
+
+import java.time.Instant;
+
+public final class User {
+    private final long id;
+    private final String firstName;
+    private final String lastName;
+    private final String email;
+    private final boolean isActive;
+    private final Instant createdAt;
+
+    public User(long id, String firstName, String lastName, String email, boolean isActive, Instant createdAt) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.isActive = isActive;
+        this.createdAt = createdAt;
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public String firstName() {
+        return firstName;
+    }
+
+    public String lastName() {
+        return lastName;
+    }
+
+    public String email() {
+        return email;
+    }
+
+    public boolean isActive() {
+        return isActive;
+    }
+
+    public Instant createdAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,22 @@
+package com.inputforge.dbx.benchmarks;
+
+import com.inputforge.dbx.Dao;
+import com.inputforge.dbx.Query;
+
+import java.util.List;
+
+@Dao
+public interface UserDao {
+
+    @Query("SELECT id, first_name, last_name, email, is_active, created_at FROM users WHERE id = ?")
+    User getUserById(long id);
+
+    @Query("SELECT count(*) FROM users WHERE is_active = ?")
+    int countUsers(boolean isActive);
+
+    @Query("SELECT id FROM users")
+    List<Integer> getUserIds();
+
+    @Query("SELECT id, first_name, last_name, email, is_active, created_at FROM users WHERE id <= ?")
+    List<User> getUsers(long maxId);
+}
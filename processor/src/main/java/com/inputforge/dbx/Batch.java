@@ -0,0 +1,20 @@
+package com.inputforge.dbx;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Executes a write query once per element of the method's single {@code Iterable} parameter,
+ * sending rows to the database in chunks of {@link #size()}. Entity elements are bound through
+ * {@code :property} placeholders in the query.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.CLASS)
+public @interface Batch {
+    /**
+     * Rows per executeBatch call; {@code 0} uses the DAO's configured default.
+     */
+    int size() default 0;
+}
@@ -0,0 +1,35 @@
+package com.inputforge.dbx;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the result of a query per distinct list of arguments, so repeated calls skip the
+ * database. Each DAO instance has its own cache, which is cleared whenever one of its write
+ * methods touches a table the query reads. Calls inside a transaction bypass the cache, as
+ * they may see writes other threads cannot. Cached collections are unmodifiable.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.CLASS)
+public @interface Cached {
+    /**
+     * Maximum number of cached argument lists; the least recently used are evicted first.
+     */
+    int maxSize() default 1000;
+
+    /**
+     * How long an entry stays valid, in {@link #unit()}s; {@code 0} keeps it until it is evicted
+     * or invalidated.
+     */
+    long ttl() default 0;
+
+    TimeUnit unit() default TimeUnit.SECONDS;
+
+    /**
+     * Tables the query reads; empty derives them from its FROM and JOIN clauses.
+     */
+    String[] tables() default {};
+}
@@ -0,0 +1,28 @@
+package com.inputforge.dbx;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges concurrent calls of a single-key lookup into one query. The query must have exactly one
+ * parameter, compared as {@code <column> = ?}; calls arriving within {@link #window()} of each
+ * other, up to {@link #maxBatch()} keys, run as {@code <column> IN (...)} and each caller gets
+ * the row matching its key, or {@code null}. Queries with LIMIT, OFFSET, GROUP BY, HAVING,
+ * aggregates or OR conditions are rejected, as they would answer the batch rather than each key.
+ * Inside a transaction, or on a single connection, each call runs its own query.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.CLASS)
+public @interface Coalesce {
+    int maxBatch() default 100;
+
+    /**
+     * How long the first call of a batch waits for others, in {@link #unit()}s.
+     */
+    long window() default 1;
+
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+}
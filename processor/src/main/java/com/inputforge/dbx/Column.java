@@ -0,0 +1,17 @@
+package com.inputforge.dbx;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the column a constructor parameter of a mapped class is read from, when it does not
+ * follow the column naming of the build ({@code snake_case} of the parameter name unless the
+ * {@code dbx.columnNaming} processor option says {@code exact}).
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.CLASS)
+public @interface Column {
+    String value();
+}
@@ -0,0 +1,16 @@
+package com.inputforge.dbx;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a {@code <Name>Columns} class holding query results column by column, one array per
+ * constructor parameter of the annotated class, for DAO methods to return instead of a list of
+ * rows.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.CLASS)
+public @interface Columnar {
+}
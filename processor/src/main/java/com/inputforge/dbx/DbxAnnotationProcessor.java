@@ -1,72 +1,196 @@
 package com.inputforge.dbx;
 
+import com.inputforge.dbx.codegen.ColumnNaming;
+import com.inputforge.dbx.codegen.ColumnsSpec;
 import com.inputforge.dbx.codegen.DaoClassBuilder;
 import com.inputforge.dbx.codegen.MethodSpec;
+import com.inputforge.dbx.codegen.ShardSpec;
 
 import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
-import javax.annotation.processing.SupportedSourceVersion;
+import javax.annotation.processing.SupportedOptions;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
 import javax.tools.Diagnostic;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardLocation;
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
 
-@SupportedAnnotationTypes("com.inputforge.dbx.Dao")
-@SupportedSourceVersion(SourceVersion.RELEASE_11)
+@SupportedAnnotationTypes({"com.inputforge.dbx.Dao", "com.inputforge.dbx.Columnar"})
+@SupportedOptions(ColumnNaming.OPTION)
 public class DbxAnnotationProcessor extends AbstractProcessor {
+    // DAOs naming types generated in the same round, such as @Columnar results, wait for the next
+    private final Set<String> deferredDaos = new LinkedHashSet<>();
+    // DAOs processed since the last registry was written, by interface name
+    private final Map<String, String> daoClasses = new TreeMap<>();
+    private final List<Element> daoElements = new ArrayList<>();
+    private final List<Element> daoOrigins = new ArrayList<>();
+    // Registries written in every round, listed in one service file at the end
+    private final Set<String> registries = new TreeSet<>();
+    private ColumnNaming columnNaming = ColumnNaming.SNAKE_CASE;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        try {
+            columnNaming = ColumnNaming.fromOption(processingEnv.getOptions().get(ColumnNaming.OPTION));
+        } catch (IllegalArgumentException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage());
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
-        var daoClasses = new HashMap<String, String>();
-        for (var element : roundEnv.getElementsAnnotatedWith(Dao.class)) {
+        for (var element : roundEnv.getElementsAnnotatedWith(Columnar.class)) {
+            processColumnar(element);
+        }
+
+        var daos = new ArrayList<Element>(roundEnv.getElementsAnnotatedWith(Dao.class));
+        for (var name : deferredDaos) {
+            daos.add(processingEnv.getElementUtils().getTypeElement(name));
+        }
+        deferredDaos.clear();
+        for (var element : daos) {
+            if (!roundEnv.processingOver() && element instanceof TypeElement
+                    && hasUnresolvedTypes((TypeElement) element)) {
+                deferredDaos.add(((TypeElement) element).getQualifiedName().toString());
+                continue;
+            }
             var daoImplClass = this.processDaoInterface(element);
-            daoImplClass.ifPresent(s -> daoClasses.put(element.toString(), s));
+            daoImplClass.ifPresent(s -> {
+                daoClasses.put(element.toString(), s);
+                daoElements.add(element);
+            });
         }
 
-        if (!daoClasses.isEmpty()) {
-            try {
-                writeDaoRegistry(daoClasses);
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
+        try {
+            if (deferredDaos.isEmpty() && !daoClasses.isEmpty()) {
+                writeDaoRegistry();
             }
+            if (roundEnv.processingOver() && !registries.isEmpty()) {
+                writeDaoService();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
 
         return true;
     }
 
-    private void writeDaoRegistry(HashMap<String, String> daoClasses) throws IOException {
-        String daoRegistryClassName = "DaoRegistry" + System.currentTimeMillis();
+    private static boolean hasUnresolvedTypes(TypeElement dao) {
+        return ElementFilter.methodsIn(dao.getEnclosedElements())
+                .stream()
+                .flatMap(m -> Stream.concat(Stream.of(m.getReturnType()), m.getParameters().stream().map(Element::asType)))
+                .anyMatch(DbxAnnotationProcessor::isUnresolved);
+    }
+
+    private static boolean isUnresolved(TypeMirror type) {
+        if (type.getKind() == TypeKind.ERROR) {
+            return true;
+        }
+        return type instanceof DeclaredType
+                && ((DeclaredType) type).getTypeArguments().stream().anyMatch(DbxAnnotationProcessor::isUnresolved);
+    }
+
+    private void processColumnar(Element element) {
+        if (!element.getKind().isClass()) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Columnar annotation can only be used on classes",
+                    element
+            );
+            return;
+        }
+
+        var type = (TypeElement) element;
+        var packageName = processingEnv.getElementUtils().getPackageOf(type).toString();
+        try {
+            ColumnsSpec.from(type, packageName, columnNaming).write(processingEnv, type);
+        } catch (IllegalArgumentException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), element);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeDaoRegistry() throws IOException {
+        var daoRegistryClassName = registryName(daoClasses.keySet());
 
         writeDaoRegistryImpl(daoClasses, "dbx.internal", daoRegistryClassName);
-        writeDaoService("dbx.internal", daoRegistryClassName);
+        registries.add("dbx.internal." + daoRegistryClassName);
+        daoOrigins.addAll(daoElements);
+        daoClasses.clear();
+        daoElements.clear();
+    }
+
+    /**
+     * Names a registry after the DAOs it holds, so the same sources always produce the same
+     * output and registries of different modules do not clash on one class path.
+     */
+    private static String registryName(Collection<String> daos) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            for (var dao : new TreeSet<>(daos)) {
+                digest.update(dao.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return String.format("DaoRegistry_%016x", ByteBuffer.wrap(digest.digest()).getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
-    private void writeDaoService(String packageName, String className) throws IOException {
+    private void writeDaoService() throws IOException {
         var file = processingEnv.getFiler().createResource(
                 StandardLocation.CLASS_OUTPUT,
                 "",
-                "META-INF/services/com.inputforge.dbx.DaoRegistry");
+                "META-INF/services/com.inputforge.dbx.DaoRegistry",
+                daoOrigins.toArray(Element[]::new));
         try (var writer = file.openWriter()) {
-            writer.append(packageName).append(".").append(className);
+            for (var registry : registries) {
+                writer.append(registry).append("\n");
+            }
         }
     }
 
-    private void writeDaoRegistryImpl(HashMap<String, String> daoClasses, String packageName, String className) throws IOException {
+    private void writeDaoRegistryImpl(Map<String, String> daoClasses, String packageName, String className) throws IOException {
         JavaFileObject file = processingEnv.getFiler()
-                .createSourceFile(packageName + "." + className);
+                .createSourceFile(packageName + "." + className, daoElements.toArray(Element[]::new));
 
         try (var writer = file.openWriter()) {
             writer.append("package ").append(packageName).append(";\n\n")
-                    .append("import java.sql.Connection;\n")
-                    .append("import java.util.Optional;\n\n")
+                    .append("import java.util.HashMap;\n")
+                    .append("import java.util.Map;\n")
+                    .append("import java.util.function.BiFunction;\n\n")
+                    .append("import com.inputforge.dbx.ConnectionSource;\n")
+                    .append("import com.inputforge.dbx.DaoOptions;\n")
                     .append("import com.inputforge.dbx.DaoRegistry;\n\n")
 
                     .append("public class ")
@@ -74,21 +198,16 @@ public class DbxAnnotationProcessor extends AbstractProcessor {
                     .append(" implements DaoRegistry {\n\n");
 
             writer.append("@Override\n")
-                    .append("@SuppressWarnings(\"unchecked\")\n")
-                    .append("public <T> Optional<? extends T> get(Class<T> daoClass, Connection connection) {");
-
-            writer.append("switch (daoClass.getName()) {\n");
+                    .append("public Map<Class<?>, BiFunction<ConnectionSource, DaoOptions, ?>> daos() {\n")
+                    .append("var daos = new HashMap<Class<?>, BiFunction<ConnectionSource, DaoOptions, ?>>();\n");
             for (var entry : daoClasses.entrySet()) {
-                writer.append("case \"")
+                writer.append("daos.put(")
                         .append(entry.getKey())
-                        .append("\":\n")
-                        .append("return (Optional<? extends T>) Optional.of(new ")
+                        .append(".class, ")
                         .append(entry.getValue())
-                        .append("(connection));\n");
+                        .append("::new);\n");
             }
-            writer.append("default:\n")
-                    .append("return Optional.empty();\n")
-                    .append("}\n");
+            writer.append("return daos;\n");
 
             writer.append("}\n\n");
             writer.append("}");
@@ -121,6 +240,7 @@ public class DbxAnnotationProcessor extends AbstractProcessor {
         var daoClassBuilder = new DaoClassBuilder(packageName, className);
 
         var daoElements = daoInterface.getEnclosedElements();
+        var sharded = ShardSpec.isSharded(daoInterface);
 
 
         for (var e : daoElements) {
@@ -138,7 +258,11 @@ public class DbxAnnotationProcessor extends AbstractProcessor {
                             method
                     );
                 }
-                daoClassBuilder.addMethodSpec(MethodSpec.from(method));
+                var methodSpec = MethodSpec.from(method, processingEnv.getTypeUtils(), sharded, columnNaming);
+                for (var warning : methodSpec.getWarnings()) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, warning, method);
+                }
+                daoClassBuilder.addMethodSpec(methodSpec);
             } catch (IllegalArgumentException ex) {
                 processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
                         ex.getMessage(),
@@ -149,7 +273,7 @@ public class DbxAnnotationProcessor extends AbstractProcessor {
         }
 
         try {
-            daoClassBuilder.write(processingEnv);
+            daoClassBuilder.write(processingEnv, daoInterface);
             return Optional.of(daoClassBuilder.getCanoncialName());
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -0,0 +1,18 @@
+package com.inputforge.dbx;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Returns the keys generated by a write query instead of its update count.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.CLASS)
+public @interface GeneratedKeys {
+    /**
+     * Key columns to return; empty lets the driver decide.
+     */
+    String[] value() default {};
+}
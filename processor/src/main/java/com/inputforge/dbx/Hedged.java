@@ -0,0 +1,35 @@
+package com.inputforge.dbx;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends a second attempt of a read to another connection or replica when the first has not
+ * finished within the delay. The first result is returned and the other attempt cancelled.
+ * Without a delay, the given percentile of the method's recent latencies is used once enough
+ * calls have been seen, but never less than the minimum delay. At most the given share of calls
+ * sends a hedge, so a slowdown affecting every call does not double the load on the database.
+ * Calls inside a transaction or on a single connection are never hedged.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.CLASS)
+public @interface Hedged {
+    long delay() default 0;
+
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+    double percentile() default 95;
+
+    /**
+     * Shortest delay, in {@link #unit()}, taken from the percentile.
+     */
+    long minDelay() default 1;
+
+    /**
+     * Largest share of calls, between 0 and 1, that may send a hedge.
+     */
+    double maxHedgeRatio() default 0.1;
+}
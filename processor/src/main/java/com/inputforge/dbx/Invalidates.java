@@ -0,0 +1,16 @@
+package com.inputforge.dbx;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the tables a write method modifies, overriding the target table derived from its query.
+ * Cached reads of the same DAO that use any of them are invalidated after every call.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.CLASS)
+public @interface Invalidates {
+    String[] value();
+}
@@ -0,0 +1,18 @@
+package com.inputforge.dbx;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the column keying the rows of a query returning {@code Map<K, V>}, keeping the first row
+ * of each key, or {@code Map<K, List<V>>}, grouping them. Declaring a
+ * {@link com.inputforge.dbx.collection.LongObjectMap} instead reads long keys without boxing them;
+ * rows with a {@code NULL} key are left out of it.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.CLASS)
+public @interface MapKey {
+    String value();
+}
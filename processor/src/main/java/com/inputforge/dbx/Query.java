@@ -6,7 +6,18 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 @Target(ElementType.METHOD)
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 public @interface Query {
     String value();
+
+    /**
+     * Fetch size for streaming results; {@code 0} uses the DAO's configured default.
+     */
+    int fetchSize() default 0;
+
+    /**
+     * Number of rows a query returning a primitive array or collection is expected to read, to
+     * size the result up front; {@code 0} uses the fetch size.
+     */
+    int expectedRows() default 0;
 }
@@ -0,0 +1,17 @@
+package com.inputforge.dbx;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides whether a query only reads, and may therefore run on a replica when the DAO uses a
+ * {@code ReplicaRoutingSource}. SELECT queries are read-only by default; {@code @ReadOnly(false)}
+ * keeps one on the primary, for example when it must see the caller's own recent writes.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.CLASS)
+public @interface ReadOnly {
+    boolean value() default true;
+}
@@ -0,0 +1,18 @@
+package com.inputforge.dbx;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Routes a call to the shard holding the rows of this parameter's value. Methods of the same DAO
+ * without a shard key run on every shard and merge the results: collections are concatenated,
+ * update counts, counts and sums are summed, maxima and minima compared and other values are taken
+ * from the first shard returning one. Queries with other aggregates, {@code ORDER BY},
+ * {@code LIMIT} or {@code GROUP BY} need a shard key.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.CLASS)
+public @interface ShardKey {
+}
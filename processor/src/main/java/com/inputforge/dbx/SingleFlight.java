@@ -0,0 +1,16 @@
+package com.inputforge.dbx;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lets concurrent calls with equal arguments share one execution of the query: the first call
+ * runs it, later calls made while it is running wait for its result. Calls inside a
+ * transaction always run their own query. Shared collections are unmodifiable.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.CLASS)
+public @interface SingleFlight {
+}
@@ -0,0 +1,116 @@
+package com.inputforge.dbx.codegen;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class BatchSpec {
+    public static final String ITEM = "batchItem";
+
+    private static final Set<String> supportedIterables = Set.of(
+            "java.lang.Iterable",
+            "java.util.Collection",
+            "java.util.List",
+            "java.util.Set"
+    );
+
+    private final String sql;
+    private final String iterable;
+    private final List<ParameterSpec> params;
+    private final int size;
+
+    public BatchSpec(String sql, String iterable, List<ParameterSpec> params, int size) {
+        this.sql = sql;
+        this.iterable = iterable;
+        this.params = params;
+        this.size = size;
+    }
+
+    public static BatchSpec from(ExecutableElement method, String query, int size) {
+        if (method.getParameters().size() != 1) {
+            throw new IllegalArgumentException("Batch methods take exactly one Iterable parameter");
+        }
+
+        var parameter = method.getParameters().get(0);
+        var elementType = getElementType(parameter.asType());
+        var iterable = parameter.getSimpleName().toString();
+
+        if (isBindable(elementType)) {
+            return new BatchSpec(query, iterable,
+                    List.of(ParameterSpec.of(ITEM, elementType.toString())), size);
+        }
+
+        var sqlText = SqlText.withNamedParameters(query);
+        if (sqlText.getParameterNames().isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Batch queries over " + elementType + " must bind properties as :name placeholders");
+        }
+
+        var element = (TypeElement) ((DeclaredType) elementType).asElement();
+        var params = new ArrayList<ParameterSpec>();
+        for (var property : sqlText.getParameterNames()) {
+            var accessor = findAccessor(element, property);
+            params.add(ParameterSpec.of(
+                    ITEM + "." + accessor.getSimpleName() + "()",
+                    accessor.getReturnType().toString()));
+        }
+        return new BatchSpec(sqlText.getSql(), iterable, params, size);
+    }
+
+    private static TypeMirror getElementType(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED) {
+            var declaredType = (DeclaredType) type;
+            if (supportedIterables.contains(declaredType.asElement().toString())
+                    && declaredType.getTypeArguments().size() == 1) {
+                return declaredType.getTypeArguments().get(0);
+            }
+        }
+        throw new IllegalArgumentException("Batch methods take exactly one Iterable parameter");
+    }
+
+    private static boolean isBindable(TypeMirror type) {
+        try {
+            ParameterSpec.of(ITEM, type.toString());
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static ExecutableElement findAccessor(TypeElement element, String property) {
+        var capitalized = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        var names = Set.of(property, "get" + capitalized, "is" + capitalized);
+        for (var method : ElementFilter.methodsIn(element.getEnclosedElements())) {
+            if (method.getModifiers().contains(Modifier.PUBLIC)
+                    && method.getParameters().isEmpty()
+                    && names.contains(method.getSimpleName().toString())) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(
+                "No accessor for :" + property + " on " + element.getQualifiedName());
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getIterable() {
+        return iterable;
+    }
+
+    public List<ParameterSpec> getParams() {
+        return params;
+    }
+
+    public String getSizeExpression() {
+        return size > 0 ? String.valueOf(size) : "options.batchSize()";
+    }
+}
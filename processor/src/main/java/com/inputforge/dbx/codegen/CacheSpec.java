@@ -0,0 +1,53 @@
+package com.inputforge.dbx.codegen;
+
+import com.inputforge.dbx.Cached;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class CacheSpec {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Set<String> tables;
+    private final String valueType;
+
+    private CacheSpec(int maxSize, long ttlNanos, Set<String> tables, String valueType) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlNanos;
+        this.tables = tables;
+        this.valueType = valueType;
+    }
+
+    public static CacheSpec from(Cached cached, String sql, String valueType) {
+        if (cached.maxSize() < 1) {
+            throw new IllegalArgumentException("@Cached maxSize must be at least 1");
+        }
+        if (cached.ttl() < 0) {
+            throw new IllegalArgumentException("@Cached ttl must not be negative");
+        }
+
+        var tables = cached.tables().length > 0
+                ? Arrays.stream(cached.tables()).map(SqlText::tableName).collect(Collectors.toSet())
+                : SqlText.tables(sql);
+        return new CacheSpec(cached.maxSize(), cached.unit().toNanos(cached.ttl()), tables, valueType);
+    }
+
+    public Set<String> getTables() {
+        return tables;
+    }
+
+    public void writeField(Writer writer, String field) throws IOException {
+        writer.append("private final com.inputforge.dbx.cache.QueryCache<Object, ")
+                .append(valueType)
+                .append("> ")
+                .append(field)
+                .append(" = new com.inputforge.dbx.cache.QueryCache<>(")
+                .append(String.valueOf(maxSize))
+                .append(", ")
+                .append(String.valueOf(ttlNanos))
+                .append("L);\n");
+    }
+}
@@ -80,4 +80,8 @@ public class ClassSpec {
         this.constructors.add(constructorSpec);
         return this;
     }
+
+    public ClassSpec constructor(String parameters, String body) {
+        return constructor(new ConstructorSpec(name, parameters, body));
+    }
 }
@@ -0,0 +1,115 @@
+package com.inputforge.dbx.codegen;
+
+import com.inputforge.dbx.Coalesce;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.regex.Pattern;
+
+/**
+ * Rewrites a single-key lookup {@code ... WHERE <column> = ?} into
+ * {@code SELECT ..., <column> AS dbx_key ... WHERE <column> IN (...)} so that one query answers
+ * a batch of keys and every row can be matched back to its key.
+ */
+public class CoalesceSpec {
+    public static final String KEY_LABEL = "dbx_key";
+    private static final Pattern keyComparison = Pattern.compile("([A-Za-z_][\\w.\"`]*)\\s*=\\s*$");
+
+    private final String prefix;
+    private final String suffix;
+    private final String keyType;
+    private final String keyName;
+    private final int maxBatch;
+    private final long windowNanos;
+
+    private CoalesceSpec(String prefix, String suffix, String keyType, String keyName, int maxBatch,
+                         long windowNanos) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.keyType = keyType;
+        this.keyName = keyName;
+        this.maxBatch = maxBatch;
+        this.windowNanos = windowNanos;
+    }
+
+    public static CoalesceSpec from(ExecutableElement method, Coalesce coalesce, String sql, Types types) {
+        if (coalesce.maxBatch() < 1) {
+            throw new IllegalArgumentException("@Coalesce maxBatch must be at least 1");
+        }
+        if (method.getParameters().size() != 1) {
+            throw new IllegalArgumentException("@Coalesce requires a method with a single key parameter");
+        }
+
+        var placeholders = SqlText.placeholders(sql);
+        if (placeholders.size() != 1) {
+            throw new IllegalArgumentException("@Coalesce requires a query with a single ? placeholder");
+        }
+        var placeholder = placeholders.get(0);
+        var comparison = keyComparison.matcher(sql.substring(0, placeholder));
+        var from = SqlText.topLevelFrom(sql);
+        if (!comparison.find() || from < 0 || from > comparison.start()) {
+            throw new IllegalArgumentException("@Coalesce requires a query of the form SELECT ... FROM ... WHERE <column> = ?");
+        }
+
+        // Limits, groups and aggregates apply to the whole batch rather than to each key, and an
+        // OR would let rows of other keys match
+        if (SqlText.containsKeyword(sql, "LIMIT", "OFFSET", "FETCH", "TOP", "GROUP", "HAVING", "OR", "OVER")
+                || !SqlText.aggregates(sql).isEmpty()) {
+            throw new IllegalArgumentException("@Coalesce cannot batch queries with LIMIT, OFFSET, FETCH, GROUP BY, "
+                    + "HAVING, aggregates, window functions or OR conditions");
+        }
+
+        var column = comparison.group(1);
+        var prefix = sql.substring(0, from).stripTrailing()
+                + ", " + column + " AS " + KEY_LABEL + " "
+                + sql.substring(from, comparison.start())
+                + column + " IN (";
+        var suffix = ")" + sql.substring(placeholder + 1);
+
+        var parameter = method.getParameters().get(0);
+        return new CoalesceSpec(prefix, suffix, boxed(parameter.asType(), types),
+                parameter.getSimpleName().toString(), coalesce.maxBatch(), coalesce.unit().toNanos(coalesce.window()));
+    }
+
+    private static String boxed(TypeMirror type, Types types) {
+        return type.getKind().isPrimitive()
+                ? types.boxedClass((PrimitiveType) type).getQualifiedName().toString()
+                : type.toString();
+    }
+
+    public String getKeyType() {
+        return keyType;
+    }
+
+    public String getKeyName() {
+        return keyName;
+    }
+
+    public void writeFields(Writer writer, String inListField, String coalescerField, String valueType,
+                            String batchMethod) throws IOException {
+        writer.append("private static final com.inputforge.dbx.InList ")
+                .append(inListField)
+                .append(" = new com.inputforge.dbx.InList(\"")
+                .append(MethodSpec.quoteJavaString(prefix))
+                .append("\", \"")
+                .append(MethodSpec.quoteJavaString(suffix))
+                .append("\");\n")
+                .append("private final com.inputforge.dbx.Coalescer<")
+                .append(keyType)
+                .append(", ")
+                .append(valueType)
+                .append("> ")
+                .append(coalescerField)
+                .append(" = new com.inputforge.dbx.Coalescer<>(")
+                .append(String.valueOf(maxBatch))
+                .append(", ")
+                .append(String.valueOf(windowNanos))
+                .append("L, this::")
+                .append(batchMethod)
+                .append(", executor);\n");
+    }
+}
@@ -0,0 +1,51 @@
+package com.inputforge.dbx.codegen;
+
+import java.util.Locale;
+
+/**
+ * How the columns a constructor parameter maps to are named in SQL, chosen with the
+ * {@code dbx.columnNaming} processor option.
+ */
+public enum ColumnNaming {
+    /**
+     * {@code firstName} is the column {@code first_name}.
+     */
+    SNAKE_CASE,
+    /**
+     * Columns are named like the parameters.
+     */
+    EXACT;
+
+    public static final String OPTION = "dbx.columnNaming";
+
+    public static ColumnNaming fromOption(String value) {
+        if (value == null) {
+            return SNAKE_CASE;
+        }
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "snake_case":
+                return SNAKE_CASE;
+            case "exact":
+                return EXACT;
+            default:
+                throw new IllegalArgumentException("Unknown " + OPTION + " " + value + "; use snake_case or exact");
+        }
+    }
+
+    public String columnName(String parameter) {
+        if (this == EXACT) {
+            return parameter;
+        }
+        var name = new StringBuilder(parameter.length() + 4);
+        for (int i = 0; i < parameter.length(); i++) {
+            char c = parameter.charAt(i);
+            if (Character.isUpperCase(c) && i > 0
+                    && (!Character.isUpperCase(parameter.charAt(i - 1))
+                    || (i + 1 < parameter.length() && Character.isLowerCase(parameter.charAt(i + 1))))) {
+                name.append('_');
+            }
+            name.append(Character.toLowerCase(c));
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package com.inputforge.dbx.codegen;
+
+import java.util.Map;
+
+public class ColumnReader {
+    private static final Map<String, String> getters = Map.ofEntries(
+            Map.entry("byte", "getByte"),
+            Map.entry("short", "getShort"),
+            Map.entry("int", "getInt"),
+            Map.entry("long", "getLong"),
+            Map.entry("float", "getFloat"),
+            Map.entry("double", "getDouble"),
+            Map.entry("boolean", "getBoolean"),
+            Map.entry("java.lang.String", "getString"),
+            Map.entry("java.sql.Date", "getDate"),
+            Map.entry("java.util.Date", "getDate"),
+            Map.entry("java.sql.Time", "getTime"),
+            Map.entry("java.sql.Timestamp", "getTimestamp"),
+            Map.entry("java.math.BigDecimal", "getBigDecimal"),
+            Map.entry("java.sql.Array", "getArray"),
+            Map.entry("java.sql.Blob", "getBlob"),
+            Map.entry("java.sql.Clob", "getClob"),
+            Map.entry("java.sql.Ref", "getRef"),
+            Map.entry("java.sql.RowId", "getRowId"),
+            Map.entry("java.sql.NClob", "getNClob"),
+            Map.entry("java.sql.SQLXML", "getSQLXML"),
+            Map.entry("java.net.URL", "getURL")
+    );
+
+    private static final Map<String, String> nullableGetters = Map.of(
+            "java.lang.Byte", "getByte",
+            "java.lang.Short", "getShort",
+            "java.lang.Integer", "getInt",
+            "java.lang.Long", "getLong",
+            "java.lang.Float", "getFloat",
+            "java.lang.Double", "getDouble",
+            "java.lang.Boolean", "getBoolean",
+            "java.time.Instant", "getInstant"
+    );
+
+    private static final Map<String, String> objectTypes = Map.of(
+            "java.time.LocalDate", "java.time.LocalDate.class",
+            "java.time.LocalTime", "java.time.LocalTime.class",
+            "java.time.LocalDateTime", "java.time.LocalDateTime.class",
+            "java.time.OffsetDateTime", "java.time.OffsetDateTime.class"
+    );
+
+    public static boolean isSupported(String type) {
+        return getters.containsKey(type)
+                || nullableGetters.containsKey(type)
+                || objectTypes.containsKey(type);
+    }
+
+    public static String read(String type, String resultSet, String column) {
+        var getter = getters.get(type);
+        if (getter != null) {
+            return resultSet + "." + getter + "(" + column + ")";
+        }
+
+        var nullableGetter = nullableGetters.get(type);
+        if (nullableGetter != null) {
+            return "com.inputforge.dbx.NullableColumns." + nullableGetter
+                    + "(" + resultSet + ", " + column + ")";
+        }
+
+        var objectType = objectTypes.get(type);
+        if (objectType != null) {
+            return resultSet + ".getObject(" + column + ", " + objectType + ")";
+        }
+
+        throw new IllegalArgumentException("Unsupported column type: " + type);
+    }
+}
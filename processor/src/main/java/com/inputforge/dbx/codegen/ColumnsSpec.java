@@ -0,0 +1,199 @@
+package com.inputforge.dbx.codegen;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Generates the {@code <Name>Columns} class of a {@code @Columnar} type: one array per
+ * constructor parameter, filled in a single pass over a result set.
+ */
+public class ColumnsSpec {
+    private static final String COLUMNAR_RESULT = "com.inputforge.dbx.ColumnarResult";
+    static final String SELECTED_COLUMNS = "COLUMNS";
+
+    private final String packageName;
+    private final String className;
+    private final String rowType;
+    private final List<String> names;
+    private final List<String> types;
+    private final List<String> labels;
+    private final List<String> sqlColumns;
+
+    private ColumnsSpec(String packageName, String className, String rowType, List<String> names, List<String> types,
+                        List<String> labels, List<String> sqlColumns) {
+        this.packageName = packageName;
+        this.className = className;
+        this.rowType = rowType;
+        this.names = names;
+        this.types = types;
+        this.labels = labels;
+        this.sqlColumns = sqlColumns;
+    }
+
+    public static ColumnsSpec from(TypeElement element, String packageName, ColumnNaming naming) {
+        var rowMapper = RowMapperSpec.from(element.asType())
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "@Columnar requires a class with a public constructor taking column values"));
+        return new ColumnsSpec(packageName, element.getSimpleName() + "Columns", rowMapper.getTargetType(),
+                rowMapper.getColumnNames(), rowMapper.getColumnTypes(), rowMapper.getColumnLabels(),
+                rowMapper.getSqlColumns(naming));
+    }
+
+    /**
+     * Returns whether the type is a generated columns class, read with its static {@code read}.
+     */
+    public static boolean isColumnar(TypeMirror type) {
+        return type instanceof DeclaredType
+                && ((TypeElement) ((DeclaredType) type).asElement()).getInterfaces()
+                .stream()
+                .anyMatch(i -> i.toString().equals(COLUMNAR_RESULT));
+    }
+
+    /**
+     * Returns the columns a generated columns class reads, or an empty list when it is not
+     * compiled yet.
+     */
+    public static List<String> selectedColumns(TypeMirror type) {
+        return ElementFilter.fieldsIn(((DeclaredType) type).asElement().getEnclosedElements())
+                .stream()
+                .filter(field -> field.getSimpleName().contentEquals(SELECTED_COLUMNS))
+                .map(VariableElement::getConstantValue)
+                .filter(String.class::isInstance)
+                .map(value -> List.of(((String) value).split(", ")))
+                .findFirst()
+                .orElse(List.of());
+    }
+
+    public void write(ProcessingEnvironment processingEnv, TypeElement origin) throws IOException {
+        var file = processingEnv.getFiler().createSourceFile(packageName + "." + className, origin);
+        try (var writer = file.openWriter()) {
+            writer.append("package ")
+                    .append(packageName)
+                    .append(";\n\n")
+                    .append("public final class ")
+                    .append(className)
+                    .append(" implements ")
+                    .append(COLUMNAR_RESULT)
+                    .append(" {\n\n")
+                    .append("/** The columns read, put in place of {@code SELECT *}. */\n")
+                    .append("public static final String ")
+                    .append(SELECTED_COLUMNS)
+                    .append(" = \"")
+                    .append(String.join(", ", sqlColumns))
+                    .append("\";\n\n")
+                    .append("private final int size$;\n");
+            for (int i = 0; i < names.size(); i++) {
+                writer.append("public final ")
+                        .append(types.get(i))
+                        .append("[] ")
+                        .append(names.get(i))
+                        .append(";\n");
+            }
+
+            writer.append("\n")
+                    .append("private ")
+                    .append(className)
+                    .append("(int size$");
+            for (int i = 0; i < names.size(); i++) {
+                writer.append(", ")
+                        .append(types.get(i))
+                        .append("[] ")
+                        .append(names.get(i));
+            }
+            writer.append(") {\n")
+                    .append("this.size$ = size$;\n");
+            for (var name : names) {
+                writer.append("this.")
+                        .append(name)
+                        .append(" = ")
+                        .append(name)
+                        .append(";\n");
+            }
+            writer.append("}\n\n")
+                    .append("@Override\n")
+                    .append("public int size() {\n")
+                    .append("return size$;\n")
+                    .append("}\n\n");
+
+            writer.append("public ")
+                    .append(rowType)
+                    .append(" row(int index) {\n")
+                    .append("return new ")
+                    .append(rowType)
+                    .append("(");
+            for (int i = 0; i < names.size(); i++) {
+                if (i > 0) {
+                    writer.append(", ");
+                }
+                writer.append(names.get(i)).append("[index]");
+            }
+            writer.append(");\n")
+                    .append("}\n\n");
+
+            writeRead(writer);
+            writer.append("}\n");
+        }
+    }
+
+    private void writeRead(Writer writer) throws IOException {
+        writer.append("public static ")
+                .append(className)
+                .append(" read(java.sql.ResultSet resultSet, int expectedRows) throws java.sql.SQLException {\n")
+                .append("var columns$ = com.inputforge.dbx.ResultSetMapper.columnIndexes(resultSet");
+        for (var label : labels) {
+            writer.append(", \"").append(label).append("\"");
+        }
+        writer.append(");\n")
+                .append("var capacity$ = Math.max(expectedRows, 16);\n");
+        for (int i = 0; i < names.size(); i++) {
+            writer.append("var ")
+                    .append(names.get(i))
+                    .append(" = new ")
+                    .append(types.get(i))
+                    .append("[capacity$];\n");
+        }
+        writer.append("var size$ = 0;\n")
+                .append("while (resultSet.next()) {\n")
+                .append("if (size$ == capacity$) {\n")
+                .append("capacity$ += capacity$ >> 1;\n");
+        copyAll(writer, "capacity$");
+        writer.append("}\n");
+        for (int i = 0; i < names.size(); i++) {
+            writer.append(names.get(i))
+                    .append("[size$] = ")
+                    .append(ColumnReader.read(types.get(i), "resultSet", "columns$[" + i + "]"))
+                    .append(";\n");
+        }
+        writer.append("size$++;\n")
+                .append("}\n")
+                .append("if (size$ < capacity$) {\n");
+        copyAll(writer, "size$");
+        writer.append("}\n")
+                .append("return new ")
+                .append(className)
+                .append("(size$");
+        for (var name : names) {
+            writer.append(", ").append(name);
+        }
+        writer.append(");\n")
+                .append("}\n");
+    }
+
+    private void copyAll(Writer writer, String length) throws IOException {
+        for (var name : names) {
+            writer.append(name)
+                    .append(" = java.util.Arrays.copyOf(")
+                    .append(name)
+                    .append(", ")
+                    .append(length)
+                    .append(");\n");
+        }
+    }
+}
@@ -1,8 +1,27 @@
 package com.inputforge.dbx.codegen;
 
+import java.io.IOException;
 import java.io.Writer;
 
 public class ConstructorSpec {
-    public void write(Writer writer) {
+    private final String className;
+    private final String parameters;
+    private final String body;
+
+    public ConstructorSpec(String className, String parameters, String body) {
+        this.className = className;
+        this.parameters = parameters;
+        this.body = body;
+    }
+
+    public void write(Writer writer) throws IOException {
+        writer.append("public ")
+                .append(className)
+                .append("(")
+                .append(parameters)
+                .append(") {\n")
+                .append(body)
+                .append(";\n")
+                .append("}\n\n");
     }
 }
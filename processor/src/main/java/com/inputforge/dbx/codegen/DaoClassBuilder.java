@@ -1,32 +1,46 @@
 package com.inputforge.dbx.codegen;
 
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.TypeElement;
 import javax.tools.JavaFileObject;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class DaoClassBuilder {
     private final String packageName;
     private final String className;
 
     private final List<MethodSpec> methods;
+    private final Map<String, RowMapperSpec> rowMappers;
 
     public DaoClassBuilder(String packageName, String className) {
         this.packageName = packageName;
         this.className = className;
         this.methods = new ArrayList<>();
+        this.rowMappers = new LinkedHashMap<>();
     }
 
     public void addMethodSpec(MethodSpec from) {
+        from.getRowMapper().ifPresent(rowMapper -> {
+            var existing = rowMappers.putIfAbsent(rowMapper.getClassName(), rowMapper);
+            if (existing != null && !existing.getTargetType().equals(rowMapper.getTargetType())) {
+                throw new IllegalArgumentException("Cannot map both " + existing.getTargetType()
+                        + " and " + rowMapper.getTargetType() + " in one DAO: their simple names clash");
+            }
+        });
+        from.setIndex(methods.size());
         methods.add(from);
     }
 
-    public void write(ProcessingEnvironment processingEnv) throws IOException {
+    public void write(ProcessingEnvironment processingEnv, TypeElement origin) throws IOException {
         String implClassName = getImplClassName();
 
         JavaFileObject file = processingEnv.getFiler()
-                .createSourceFile(packageName + "." + implClassName);
+                .createSourceFile(packageName + "." + implClassName, origin);
 
         var source = JavaFileComposer.withPackage(packageName)
                 .addImport("java.sql.Connection")
@@ -42,28 +56,81 @@ public class DaoClassBuilder {
                     .append(packageName)
                     .append(";\n\n")
                     .append("import java.sql.Connection;\n\n")
+                    .append("import com.inputforge.dbx.ConnectionSource;\n")
+                    .append("import com.inputforge.dbx.DaoOptions;\n\n")
 
                     .append("public class ")
                     .append(implClassName)
-                    .append(" extends AbstractDao")
+                    .append(" extends com.inputforge.dbx.AbstractDao")
                     .append(" implements ")
                     .append(className)
                     .append(" {\n\n");
 
+            for (var method : methods) {
+                method.writeQueryId(writer, packageName + "." + className);
+            }
+            writer.append("\n");
+
+            for (var method : methods) {
+                method.writeFields(writer);
+            }
+            linkInvalidations();
+
             writer.append("public ")
                     .append(implClassName)
                     .append("(Connection connection) {\n")
-                    .append("super(connection);\n")
+                    .append("this(connection, DaoOptions.defaults());\n")
+                    .append("}\n\n");
+
+            writer.append("public ")
+                    .append(implClassName)
+                    .append("(Connection connection, DaoOptions options) {\n")
+                    .append("this(ConnectionSource.of(connection, options), options);\n")
+                    .append("}\n\n");
+
+            writer.append("public ")
+                    .append(implClassName)
+                    .append("(ConnectionSource connections, DaoOptions options) {\n")
+                    .append("super(connections, options");
+            for (var method : methods) {
+                if (!method.usesStatementCache()) {
+                    continue;
+                }
+                writer.append(",\n\"")
+                        .append(method.getQuotedQuery())
+                        .append("\"");
+            }
+            writer.append(");\n")
                     .append("}\n\n");
 
             for (var method : methods) {
                 method.write(writer);
             }
 
+            for (var rowMapper : rowMappers.values()) {
+                rowMapper.write(writer);
+            }
+
             writer.append("}").close();
         }
     }
 
+    /**
+     * Makes every write method clear the caches of the queries reading a table it modifies.
+     */
+    private void linkInvalidations() {
+        for (var write : methods) {
+            var invalidated = new ArrayList<String>();
+            for (var read : methods) {
+                var cache = read.getCache();
+                if (cache.isPresent() && !Collections.disjoint(cache.get().getTables(), write.getWrittenTables())) {
+                    invalidated.add(read.getCacheField());
+                }
+            }
+            write.setInvalidatedCaches(invalidated);
+        }
+    }
+
     private String getImplClassName() {
         return className + "Impl";
     }
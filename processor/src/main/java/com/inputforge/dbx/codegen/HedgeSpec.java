@@ -0,0 +1,55 @@
+package com.inputforge.dbx.codegen;
+
+import com.inputforge.dbx.Hedged;
+
+import java.io.IOException;
+import java.io.Writer;
+
+public class HedgeSpec {
+    private final long delayNanos;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double maxHedgeRatio;
+
+    private HedgeSpec(long delayNanos, double percentile, long minDelayNanos, double maxHedgeRatio) {
+        this.delayNanos = delayNanos;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelayNanos;
+        this.maxHedgeRatio = maxHedgeRatio;
+    }
+
+    public static HedgeSpec from(Hedged hedged) {
+        if (hedged.delay() < 0) {
+            throw new IllegalArgumentException("@Hedged delay must not be negative");
+        }
+        if (!(hedged.percentile() > 0 && hedged.percentile() < 100)) {
+            throw new IllegalArgumentException("@Hedged percentile must be between 0 and 100");
+        }
+        if (hedged.minDelay() < 0) {
+            throw new IllegalArgumentException("@Hedged minDelay must not be negative");
+        }
+        if (!(hedged.maxHedgeRatio() > 0 && hedged.maxHedgeRatio() <= 1)) {
+            throw new IllegalArgumentException("@Hedged maxHedgeRatio must be above 0 and at most 1");
+        }
+        return new HedgeSpec(hedged.unit().toNanos(hedged.delay()), hedged.percentile(),
+                hedged.unit().toNanos(hedged.minDelay()), hedged.maxHedgeRatio());
+    }
+
+    public void writeField(Writer writer, String field, String valueType, String queryId) throws IOException {
+        writer.append("private final com.inputforge.dbx.Hedger<")
+                .append(valueType)
+                .append("> ")
+                .append(field)
+                .append(" = new com.inputforge.dbx.Hedger<>(")
+                .append(queryId)
+                .append(", metrics, ")
+                .append(String.valueOf(delayNanos))
+                .append("L, ")
+                .append(String.valueOf(percentile))
+                .append(", ")
+                .append(String.valueOf(minDelayNanos))
+                .append("L, ")
+                .append(String.valueOf(maxHedgeRatio))
+                .append(");\n");
+    }
+}
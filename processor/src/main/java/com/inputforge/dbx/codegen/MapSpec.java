@@ -0,0 +1,104 @@
+package com.inputforge.dbx.codegen;
+
+import com.inputforge.dbx.MapKey;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import java.util.Optional;
+
+public class MapSpec {
+    static final String LONG_MAP = "com.inputforge.dbx.collection.LongObjectMap";
+
+    private final String keyColumn;
+    private final String keyType;
+    private final TypeMirror valueType;
+    private final boolean grouped;
+    private final boolean longMap;
+
+    private MapSpec(String keyColumn, String keyType, TypeMirror valueType, boolean grouped, boolean longMap) {
+        this.keyColumn = keyColumn;
+        this.keyType = keyType;
+        this.valueType = valueType;
+        this.grouped = grouped;
+        this.longMap = longMap;
+    }
+
+    /**
+     * Returns the key and row types of a query returning a map, which must name its key column.
+     */
+    public static Optional<MapSpec> from(ExecutableElement method, TypeMirror returnType) {
+        var mapKey = method.getAnnotation(MapKey.class);
+        if (!isMap(returnType)) {
+            if (mapKey != null) {
+                throw new IllegalArgumentException("@MapKey requires a query returning a Map");
+            }
+            return Optional.empty();
+        }
+        if (mapKey == null) {
+            throw new IllegalArgumentException("Queries returning a Map need a @MapKey column");
+        }
+
+        var typeArguments = ((DeclaredType) returnType).getTypeArguments();
+        var longMap = typeArguments.size() == 1;
+        var keyType = longMap ? "java.lang.Long" : typeArguments.get(0).toString();
+        if (!ColumnReader.isSupported(keyType)) {
+            throw new IllegalArgumentException("Unsupported map key type: " + keyType);
+        }
+        var valueType = typeArguments.get(longMap ? 0 : 1);
+        var grouped = isList(valueType);
+        if (grouped) {
+            valueType = ((DeclaredType) valueType).getTypeArguments().get(0);
+        }
+        return Optional.of(new MapSpec(mapKey.value(), keyType, valueType, grouped, longMap));
+    }
+
+    public static boolean isMap(TypeMirror type) {
+        if (!(type instanceof DeclaredType)) {
+            return false;
+        }
+        var declaredType = (DeclaredType) type;
+        var element = declaredType.asElement().toString();
+        return (element.equals("java.util.Map") && declaredType.getTypeArguments().size() == 2)
+                || (element.equals(LONG_MAP) && declaredType.getTypeArguments().size() == 1);
+    }
+
+    private static boolean isList(TypeMirror type) {
+        return type instanceof DeclaredType
+                && ((DeclaredType) type).asElement().toString().equals("java.util.List")
+                && ((DeclaredType) type).getTypeArguments().size() == 1;
+    }
+
+    /**
+     * Type of the rows the map holds, one per key or grouped in lists.
+     */
+    public TypeMirror getValueType() {
+        return valueType;
+    }
+
+    /**
+     * Returns the expression filling the map, after {@code keyColumn} has been resolved.
+     */
+    public String mapping(String rowMapping, int expectedRows) {
+        var grouping = grouped ? "Groups" : "Map";
+        // A declared Map<Long, V> stays a HashMap, which supports removal and NULL keys
+        if (longMap) {
+            return "com.inputforge.dbx.ResultSetMapper.mapToLong" + grouping + "(resultSet, keyColumn, "
+                    + rowMapping + ", " + expectedRows + ")";
+        }
+        return "com.inputforge.dbx.ResultSetMapper.mapTo" + grouping + "(resultSet, row -> "
+                + ColumnReader.read(keyType, "row", "keyColumn") + ", " + rowMapping + ", " + expectedRows + ")";
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    /**
+     * Returns the {@code ScatterGather} method merging maps of several calls.
+     */
+    public static String merge(TypeMirror returnType) {
+        var typeArguments = ((DeclaredType) returnType).getTypeArguments();
+        return isList(typeArguments.get(typeArguments.size() - 1)) ? "mergeGroups" : "mergeMaps";
+    }
+}
@@ -1,13 +1,30 @@
 package com.inputforge.dbx.codegen;
 
+import com.inputforge.dbx.Batch;
+import com.inputforge.dbx.Cached;
+import com.inputforge.dbx.Coalesce;
+import com.inputforge.dbx.GeneratedKeys;
+import com.inputforge.dbx.Hedged;
+import com.inputforge.dbx.Invalidates;
+import com.inputforge.dbx.ReadOnly;
+import com.inputforge.dbx.SingleFlight;
 import com.inputforge.dbx.Query;
 
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -15,69 +32,401 @@ public class MethodSpec {
     private static final Set<String> supportedCollections = Set.of(
             "java.util.List",
             "java.util.Set",
-            "java.util.Collection"
+            "java.util.Collection",
+            "java.util.stream.Stream",
+            "java.util.Iterator",
+            "com.inputforge.dbx.Cursor"
     );
-    private static final Set<String> supportedClasses = Set.of(
+    // Scalar results read without boxing, by the ResultSetMapper method filling them
+    private static final Map<String, String> primitiveResults = Map.of(
+            "int[]", "mapToIntList",
+            "long[]", "mapToLongList",
+            "double[]", "mapToDoubleList",
+            "com.inputforge.dbx.collection.IntList", "mapToIntList",
+            "com.inputforge.dbx.collection.LongList", "mapToLongList",
+            "com.inputforge.dbx.collection.DoubleList", "mapToDoubleList",
+            "com.inputforge.dbx.collection.IntHashSet", "mapToIntSet",
+            "com.inputforge.dbx.collection.LongHashSet", "mapToLongSet"
+    );
+    private static final String ROW_LIST = "com.inputforge.dbx.store.RowList";
+    private static final Set<String> streamingTypes = Set.of(
             "java.sql.ResultSet",
-            "java.lang.Byte",
-            "java.lang.Short",
-            "java.lang.Integer",
-            "java.lang.Long",
-            "java.lang.Float",
-            "java.lang.Double",
-            "java.lang.Boolean",
-            "java.lang.String",
-            "java.sql.Date",
-            "java.util.Date",
-            "java.time.LocalDate",
-            "java.sql.Time",
-            "java.time.LocalTime",
-            "java.sql.Timestamp",
-            "java.time.LocalDateTime",
-            "java.time.OffsetDateTime",
-            "java.time.Instant",
-            "java.math.BigDecimal",
-            "java.sql.Array",
-            "java.sql.Blob",
-            "java.sql.Clob",
-            "java.sql.Ref",
-            "java.sql.RowId",
-            "java.sql.NClob",
-            "java.sql.SQLXML",
-            "java.net.URL"
+            "java.util.stream.Stream",
+            "java.util.Iterator",
+            "com.inputforge.dbx.Cursor"
     );
     private final String query;
     private final String name;
     private final TypeMirror returnType;
     private final List<ParameterSpec> params;
+    private final RowMapperSpec rowMapper;
+    private final int fetchSize;
+    private int expectedRows;
+    private List<String> declaredParams;
+    private List<String> argumentNames;
+    private String declaredReturnType;
+    private boolean async;
+    private String queryId;
+    private int index;
+    private CacheSpec cache;
+    private CoalesceSpec coalesce;
+    private boolean singleFlight;
+    private boolean readOnly;
+    private ShardSpec shard;
+    private HedgeSpec hedge;
+    private String boxedReturnType;
+    private Set<String> writtenTables = Set.of();
+    private List<String> invalidatedCaches = List.of();
+    private String[] keyColumns;
+    private BatchSpec batch;
+    private MapSpec map;
+    private int inListParam = -1;
+    private String inListPrefix;
+    private String inListSuffix;
+    private boolean inListChunked;
+    private boolean inListNegated;
+    private List<String> warnings = List.of();
 
-
-    public MethodSpec(String query, String name, TypeMirror returnType, List<ParameterSpec> params) {
+    public MethodSpec(String query, String name, TypeMirror returnType, List<ParameterSpec> params,
+                      RowMapperSpec rowMapper, int fetchSize) {
         this.query = query;
         this.name = name;
         this.returnType = returnType;
         this.params = params;
+        this.rowMapper = rowMapper;
+        this.fetchSize = fetchSize;
+        this.declaredParams = params.stream().map(ParameterSpec::toString).collect(Collectors.toList());
+        this.declaredReturnType = returnType.toString();
     }
 
-    public static MethodSpec from(ExecutableElement method) {
+    public static MethodSpec from(ExecutableElement method, Types types, boolean sharded, ColumnNaming naming) {
+        var returnType = method.getReturnType();
+        var async = isAsync(returnType);
+        if (async) {
+            returnType = ((DeclaredType) returnType).getTypeArguments().get(0);
+            if (returnType.toString().equals("java.lang.Void")) {
+                returnType = types.getNoType(TypeKind.VOID);
+            }
+        }
+
+        var methodSpec = create(method, returnType, naming);
+        methodSpec.async = async;
+        methodSpec.declaredReturnType = method.getReturnType().toString();
+        methodSpec.declaredParams = method.getParameters()
+                .stream()
+                .map(p -> p.asType() + " " + p.getSimpleName())
+                .collect(Collectors.toList());
+        methodSpec.argumentNames = method.getParameters()
+                .stream()
+                .map(p -> p.getSimpleName().toString())
+                .collect(Collectors.toList());
+
+        methodSpec.boxedReturnType = returnType.getKind().isPrimitive()
+                ? types.boxedClass((PrimitiveType) returnType).getQualifiedName().toString()
+                : returnType.toString();
+
+        var expectedRows = method.getAnnotation(Query.class).expectedRows();
+        if (expectedRows < 0) {
+            throw new IllegalArgumentException("expectedRows must not be negative");
+        }
+        methodSpec.expectedRows = expectedRows;
+
+        var cached = method.getAnnotation(Cached.class);
+        if ((primitiveResults.containsKey(returnType.toString()) || returnType.toString().startsWith(MapSpec.LONG_MAP)
+                || ColumnsSpec.isColumnar(returnType))
+                && (cached != null || method.getAnnotation(SingleFlight.class) != null)) {
+            throw new IllegalArgumentException("@Cached and @SingleFlight cannot share mutable primitive arrays or collections");
+        }
+        if (returnType.toString().equals(ROW_LIST)
+                && (cached != null || method.getAnnotation(SingleFlight.class) != null || method.getAnnotation(Hedged.class) != null)) {
+            throw new IllegalArgumentException("RowList results belong to their caller, who closes them; "
+                    + "they cannot be cached, shared or hedged");
+        }
+        if (cached != null) {
+            if (!methodSpec.isCacheable()) {
+                throw new IllegalArgumentException("@Cached requires a query returning a value or collection");
+            }
+            methodSpec.cache = CacheSpec.from(cached, methodSpec.query, methodSpec.boxedReturnType);
+        }
+
+        if (method.getAnnotation(SingleFlight.class) != null) {
+            if (!methodSpec.isCacheable()) {
+                throw new IllegalArgumentException("@SingleFlight requires a query returning a value or collection");
+            }
+            if (method.getAnnotation(Coalesce.class) != null) {
+                throw new IllegalArgumentException("@Coalesce already shares lookups of equal keys; remove @SingleFlight");
+            }
+            methodSpec.singleFlight = true;
+        }
+
+        var coalesceAnnotation = method.getAnnotation(Coalesce.class);
+        if (coalesceAnnotation != null) {
+            if (!methodSpec.isCacheable() || returnType.getKind().isPrimitive() || methodSpec.map != null
+                    || (methodSpec.rowMapper == null && !ColumnReader.isSupported(returnType.toString()))) {
+                throw new IllegalArgumentException("@Coalesce requires a query returning a single entity or nullable value");
+            }
+            if (async && cached != null) {
+                throw new IllegalArgumentException("@Cached cannot be combined with @Coalesce on asynchronous methods");
+            }
+            methodSpec.coalesce = CoalesceSpec.from(method, coalesceAnnotation, methodSpec.query, types);
+        }
+
+        if (sharded) {
+            if (methodSpec.coalesce != null) {
+                throw new IllegalArgumentException("@Coalesce is not supported in sharded DAOs");
+            }
+            methodSpec.shard = ShardSpec.from(method, returnType, methodSpec.query);
+            if (methodSpec.shard.isScatter()
+                    && (methodSpec.batch != null || methodSpec.keyColumns != null || methodSpec.isStreaming())) {
+                throw new IllegalArgumentException(
+                        "Batches, generated keys and streaming queries of sharded DAOs need a @ShardKey parameter");
+            }
+        }
+
+        var readOnly = method.getAnnotation(ReadOnly.class);
+        methodSpec.readOnly = readOnly != null ? readOnly.value() : SqlText.isQuery(methodSpec.query);
+        if (methodSpec.readOnly && (methodSpec.batch != null || methodSpec.keyColumns != null)) {
+            throw new IllegalArgumentException("@ReadOnly cannot be used on @Batch or @GeneratedKeys methods");
+        }
+
+        var hedged = method.getAnnotation(Hedged.class);
+        if (hedged != null) {
+            if (!methodSpec.readOnly || !methodSpec.isCacheable()) {
+                throw new IllegalArgumentException("@Hedged requires a read-only query returning a value or collection");
+            }
+            if (methodSpec.coalesce != null) {
+                throw new IllegalArgumentException("@Hedged cannot be combined with @Coalesce");
+            }
+            if (methodSpec.shard != null && methodSpec.shard.isScatter()) {
+                throw new IllegalArgumentException("@Hedged methods of sharded DAOs need a @ShardKey parameter");
+            }
+            methodSpec.hedge = HedgeSpec.from(hedged);
+        }
+
+        methodSpec.checkInList();
+
+        var invalidates = method.getAnnotation(Invalidates.class);
+        if (methodSpec.readOnly || SqlText.isQuery(methodSpec.query)) {
+            if (invalidates != null) {
+                throw new IllegalArgumentException("@Invalidates requires a write query");
+            }
+        } else {
+            methodSpec.writtenTables = invalidates != null
+                    ? Arrays.stream(invalidates.value()).map(SqlText::tableName).collect(Collectors.toSet())
+                    : SqlText.tables(methodSpec.query);
+        }
+        return methodSpec;
+    }
+
+    /**
+     * Finds a collection parameter bound to an {@code IN (?)} list and splits the query around it.
+     */
+    private void checkInList() {
+        for (int i = 0; i < params.size(); i++) {
+            if (!params.get(i).isCollection()) {
+                continue;
+            }
+            if (inListParam >= 0) {
+                throw new IllegalArgumentException("Only one collection parameter can be expanded into an IN list");
+            }
+            inListParam = i;
+        }
+        if (inListParam < 0) {
+            return;
+        }
+
+        var placeholders = SqlText.placeholders(query);
+        if (placeholders.size() != params.size()) {
+            throw new IllegalArgumentException("Queries with a collection parameter need one ? placeholder per parameter");
+        }
+        var placeholder = placeholders.get(inListParam);
+        if (!query.substring(0, placeholder).stripTrailing().endsWith("(")
+                || !query.substring(placeholder + 1).stripLeading().startsWith(")")) {
+            throw new IllegalArgumentException("The placeholder of a collection parameter must be written as IN (?)");
+        }
+        if (isStreaming() || keyColumns != null) {
+            throw new IllegalArgumentException("Collection parameters are not supported on streaming or @GeneratedKeys methods");
+        }
+        if (coalesce != null || hedge != null) {
+            throw new IllegalArgumentException("Collection parameters cannot be combined with @Coalesce or @Hedged");
+        }
+        if (shard != null && params.get(inListParam).getName().equals(shard.getKeyName())) {
+            throw new IllegalArgumentException("A collection parameter cannot be a @ShardKey");
+        }
+        inListPrefix = query.substring(0, placeholder);
+        inListSuffix = query.substring(placeholder + 1);
+        var words = inListPrefix.substring(0, inListPrefix.lastIndexOf('(')).trim().split("\\s+");
+        inListNegated = words.length >= 2 && words[words.length - 2].equalsIgnoreCase("NOT")
+                && words[words.length - 1].equalsIgnoreCase("IN");
+        // NOT IN lists, writes and results that cannot be merged run as one statement with the
+        // whole list, so a write is never split over several autocommitted statements
+        inListChunked = !inListNegated && SqlText.isQuery(query)
+                && ShardSpec.mergeProblem(returnType, query) == null;
+    }
+
+    private boolean isCacheable() {
+        return SqlText.isQuery(query) && !isStreaming() && returnType.getKind() != TypeKind.VOID;
+    }
+
+    private static boolean isAsync(TypeMirror returnType) {
+        return returnType instanceof DeclaredType
+                && ((DeclaredType) returnType).asElement().toString()
+                .equals("java.util.concurrent.CompletableFuture")
+                && ((DeclaredType) returnType).getTypeArguments().size() == 1;
+    }
+
+    private static MethodSpec create(ExecutableElement method, TypeMirror returnType, ColumnNaming naming) {
+        var queryAnnotation = method.getAnnotation(Query.class);
+        var generatedKeys = method.getAnnotation(GeneratedKeys.class);
+        var keyColumns = generatedKeys != null ? generatedKeys.value() : null;
+
+        var batchAnnotation = method.getAnnotation(Batch.class);
+        if (batchAnnotation != null) {
+            if (SqlText.isQuery(queryAnnotation.value())) {
+                throw new IllegalArgumentException("@Batch requires a write query");
+            }
+            if (!isBatchReturnTypeSupported(returnType, keyColumns != null)) {
+                throw new IllegalArgumentException("Unsupported batch return type: " + returnType);
+            }
+            var batch = BatchSpec.from(method, queryAnnotation.value(), batchAnnotation.size());
+            var methodSpec = new MethodSpec(
+                    batch.getSql(),
+                    method.getSimpleName().toString(),
+                    returnType,
+                    List.of(),
+                    null,
+                    0
+            );
+            methodSpec.keyColumns = keyColumns;
+            methodSpec.batch = batch;
+            return methodSpec;
+        }
+
         var params = method.getParameters()
                 .stream()
                 .map(ParameterSpec::from)
                 .collect(Collectors.toList());
 
-        var returnType = method.getReturnType();
+        if (!SqlText.isQuery(queryAnnotation.value())) {
+            if (!isUpdateReturnTypeSupported(returnType, keyColumns != null)) {
+                throw new IllegalArgumentException("Unsupported update return type: " + returnType);
+            }
+            var methodSpec = new MethodSpec(
+                    queryAnnotation.value(),
+                    method.getSimpleName().toString(),
+                    returnType,
+                    params,
+                    null,
+                    0
+            );
+            methodSpec.keyColumns = keyColumns;
+            return methodSpec;
+        }
+
+        if (keyColumns != null) {
+            throw new IllegalArgumentException("@GeneratedKeys requires a write query");
+        }
+
+        var map = MapSpec.from(method, returnType).orElse(null);
+        if (map != null) {
+            var valueType = map.getValueType();
+            var rowMapper = ColumnReader.isSupported(valueType.toString())
+                    ? null
+                    : RowMapperSpec.from(valueType).orElseThrow(() -> new IllegalArgumentException(
+                            "Unsupported map value type: " + valueType));
+            var warnings = new ArrayList<String>();
+            var query = queryAnnotation.value();
+            if (rowMapper != null) {
+                var columns = new ArrayList<>(rowMapper.getSqlColumns(naming));
+                if (columns.stream().noneMatch(c -> normalizedLabel(c).equals(normalizedLabel(map.getKeyColumn())))) {
+                    columns.add(map.getKeyColumn());
+                }
+                query = selectColumns(query, columns, rowMapper.getColumnLabels(), rowMapper.getTargetType(), warnings);
+            }
+            var methodSpec = new MethodSpec(
+                    query,
+                    method.getSimpleName().toString(),
+                    returnType,
+                    params,
+                    rowMapper,
+                    queryAnnotation.fetchSize()
+            );
+            methodSpec.map = map;
+            methodSpec.warnings = warnings;
+            return methodSpec;
+        }
 
-        if (!isReturnTypeSupported(returnType)) {
-            throw new IllegalArgumentException(
-                    "Unsupported return type: " + returnType);
+        if (isReturnTypeSupported(returnType)) {
+            var warnings = new ArrayList<String>();
+            var query = queryAnnotation.value();
+            if (ColumnsSpec.isColumnar(returnType)) {
+                var columns = ColumnsSpec.selectedColumns(returnType);
+                query = selectColumns(query, columns, columns, returnType.toString(), warnings);
+            }
+            var methodSpec = new MethodSpec(
+                    query,
+                    method.getSimpleName().toString(),
+                    returnType,
+                    params,
+                    null,
+                    queryAnnotation.fetchSize()
+            );
+            methodSpec.warnings = warnings;
+            return methodSpec;
         }
 
-        return new MethodSpec(
-                method.getAnnotation(Query.class).value(),
+        var rowMapper = RowMapperSpec.from(getRowType(returnType))
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Unsupported return type: " + returnType));
+
+        var warnings = new ArrayList<String>();
+        var methodSpec = new MethodSpec(
+                selectColumns(queryAnnotation.value(), rowMapper.getSqlColumns(naming), rowMapper.getColumnLabels(),
+                        rowMapper.getTargetType(), warnings),
                 method.getSimpleName().toString(),
                 returnType,
-                params
+                params,
+                rowMapper,
+                queryAnnotation.fetchSize()
         );
+        methodSpec.warnings = warnings;
+        return methodSpec;
+    }
+
+    /**
+     * Puts the columns a mapped type reads in place of {@code SELECT *}, so the database does not
+     * send columns that would be dropped, and warns about an explicit select list naming columns
+     * the type does not read.
+     */
+    private static String selectColumns(String query, List<String> columns, List<String> labels, String targetType,
+                                        List<String> warnings) {
+        if (columns.isEmpty()) {
+            return query;
+        }
+        var selected = SqlText.selectedLabels(query);
+        if (selected == null) {
+            return SqlText.withSelectedColumns(query, columns);
+        }
+
+        var read = new HashSet<String>();
+        for (var column : columns) {
+            read.add(normalizedLabel(column));
+        }
+        for (var label : labels) {
+            read.add(normalizedLabel(label));
+        }
+        var dropped = selected.stream()
+                .filter(label -> label != null && !read.contains(normalizedLabel(label)))
+                .collect(Collectors.toList());
+        if (!dropped.isEmpty()) {
+            warnings.add("Query selects columns " + targetType + " does not read: " + String.join(", ", dropped));
+        }
+        return query;
+    }
+
+    // Labels are matched at runtime ignoring case and underscores
+    private static String normalizedLabel(String label) {
+        return label.replace("_", "").toLowerCase(Locale.ROOT);
     }
 
     private static boolean isReturnTypeSupported(TypeMirror returnType) {
@@ -89,199 +438,1068 @@ public class MethodSpec {
             return true;
         }
 
-        if (supportedClasses.contains(returnType.toString())) {
+        if (returnType.toString().equals("java.sql.ResultSet")
+                || ColumnReader.isSupported(returnType.toString())
+                || primitiveResults.containsKey(returnType.toString())
+                || returnType.toString().equals(ROW_LIST)
+                || ColumnsSpec.isColumnar(returnType)) {
             return true;
         }
 
         return isCollectionTypeSupported(returnType);
     }
 
+    private static boolean isUpdateReturnTypeSupported(TypeMirror returnType, boolean generatedKeys) {
+        var type = returnType.toString();
+        if (generatedKeys) {
+            return ColumnReader.isSupported(type);
+        }
+        return type.equals("void") || type.equals("int") || type.equals("long");
+    }
+
+    private static boolean isBatchReturnTypeSupported(TypeMirror returnType, boolean generatedKeys) {
+        var type = returnType.toString();
+        if (!generatedKeys) {
+            return type.equals("void") || type.equals("int[]");
+        }
+        return type.equals("long[]") || isCollectionTypeSupported(returnType);
+    }
+
     private static boolean isCollectionTypeSupported(TypeMirror returnType) {
+        if (!isCollectionType(returnType)) {
+            return false;
+        }
+
+        var typeArg = ((DeclaredType) returnType).getTypeArguments().get(0);
+        return ColumnReader.isSupported(typeArg.toString());
+    }
+
+    private static boolean isCollectionType(TypeMirror returnType) {
         if (!(returnType instanceof DeclaredType)) {
             return false;
         }
 
         var type = ((DeclaredType) returnType);
-        var collectionType = type.asElement().toString();
+        return supportedCollections.contains(type.asElement().toString())
+                && type.getTypeArguments().size() == 1;
+    }
 
-        System.out.println("Collection type: " + returnType);
-        if (!supportedCollections.contains(collectionType)) {
-            return false;
+    private static TypeMirror getRowType(TypeMirror returnType) {
+        if (isCollectionType(returnType)) {
+            return ((DeclaredType) returnType).getTypeArguments().get(0);
+        }
+        return returnType;
+    }
+
+    private boolean isStreaming() {
+        if (returnType instanceof DeclaredType) {
+            return streamingTypes.contains(((DeclaredType) returnType).asElement().toString());
         }
+        return false;
+    }
 
-        var typeArg = type.getTypeArguments().get(0);
-        return supportedClasses.contains(typeArg.toString());
+    /**
+     * Returns the compile-time warnings about the query, such as selected columns the results drop.
+     */
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    public Optional<RowMapperSpec> getRowMapper() {
+        return Optional.ofNullable(rowMapper);
     }
 
     public void write(Writer writer) throws IOException {
-        writer.append("public ")
-                .append(returnType.toString())
-                .append(" ")
+        writeSignature(writer, "public", declaredReturnType, name);
+
+        if (inListNegated) {
+            // An empty list is bound as a single NULL, which NOT IN would compare to every row
+            writer.append("if (")
+                    .append(params.get(inListParam).getName())
+                    .append(".isEmpty()) {\n")
+                    .append("throw new IllegalArgumentException(\"NOT IN (?) needs at least one value\");\n")
+                    .append("}\n");
+        }
+
+        if (async && coalesce != null) {
+            // Coalesced lookups complete when their batch does, without occupying a thread
+            writer.append("if (!connections.supportsParallelCalls()) {\n")
+                    .append("return java.util.concurrent.CompletableFuture.supplyAsync(() -> ")
+                    .append(singleKeyBatch())
+                    .append(", executor);\n")
+                    .append("}\n")
+                    .append("return ")
+                    .append(getCoalescerField())
+                    .append(".load(")
+                    .append(coalesce.getKeyName())
+                    .append(");\n")
+                    .append("}\n");
+            writeCoalescedBatch(writer);
+            return;
+        }
+
+        if (async) {
+            // The JDBC work runs synchronously in a private method on the DAO's executor
+            var syncName = name + "$execute";
+            writer.append("return java.util.concurrent.CompletableFuture.")
+                    .append(returnType.getKind() == TypeKind.VOID ? "runAsync" : "supplyAsync")
+                    .append("(() -> ")
+                    .append(call(syncName))
+                    .append(", executor);\n")
+                    .append("}\n");
+            writeSignature(writer, "private", returnType.toString(), syncName);
+        }
+
+        if (cache != null) {
+            var loadName = name + "$load";
+            writeCacheLookup(writer, loadName);
+            writer.append("}\n");
+            writeSignature(writer, "private", returnType.toString(), loadName);
+        }
+
+        if (singleFlight) {
+            // A transaction's view must neither be shared nor replaced by another caller's
+            var runName = name + "$run";
+            writer.append("if (connections.isInTransaction()) {\n")
+                    .append("return ")
+                    .append(unmodifiable(call(runName)))
+                    .append(";\n")
+                    .append("}\n")
+                    .append("return ")
+                    .append(getSingleFlightField())
+                    .append(".execute(")
+                    .append(argumentsKey())
+                    .append(", () -> ")
+                    .append(unmodifiable(call(runName)))
+                    .append(");\n")
+                    .append("}\n");
+            writeSignature(writer, "private", returnType.toString(), runName);
+        }
+
+        // Hedge attempts, shards and chunks of one call share its permit
+        var limitsSubCalls = hedge != null || (shard != null && shard.isScatter()) || inListChunked;
+        if (limitsSubCalls) {
+            var limitedName = name + "$limited";
+            openLimit(writer);
+            writer.append(returnType.getKind() == TypeKind.VOID ? "" : "return ")
+                    .append(call(limitedName))
+                    .append(";\n");
+            closeLimit(writer);
+            writer.append("}\n");
+            writeSignature(writer, "private", returnType.toString(), limitedName);
+        }
+
+        if (hedge != null) {
+            var attemptName = name + "$attempt";
+            var arguments = new ArrayList<String>();
+            arguments.add("hedgeAttempt");
+            arguments.addAll(argumentNames);
+            writer.append("return ")
+                    .append(getHedgerField())
+                    .append(".execute(")
+                    .append(shard != null ? "connections.shard(" + shard.getKeyName() + ")" : "connections")
+                    .append(", executor, hedgeAttempt -> ")
+                    .append(attemptName)
+                    .append("(")
+                    .append(String.join(", ", arguments))
+                    .append("));\n")
+                    .append("}\n");
+            var attemptParams = new ArrayList<String>();
+            attemptParams.add("com.inputforge.dbx.Hedger.Attempt hedgeAttempt");
+            attemptParams.addAll(declaredParams);
+            writeSignature(writer, "private", returnType.toString(), attemptName, attemptParams);
+        }
+
+        if (coalesce != null) {
+            // A batch runs on another connection, which would miss the caller's transaction and
+            // could wait for the only connection the caller holds
+            writer.append("if (!connections.supportsParallelCalls()) {\n")
+                    .append("return ")
+                    .append(singleKeyBatch())
+                    .append(";\n")
+                    .append("}\n")
+                    .append("return ")
+                    .append(getCoalescerField())
+                    .append(".get(")
+                    .append(coalesce.getKeyName())
+                    .append(");\n")
+                    .append("}\n");
+            writeCoalescedBatch(writer);
+            return;
+        }
+
+        if (shard != null && shard.isScatter()) {
+            var shardName = name + "$shard";
+            writeScatter(writer, shardName);
+            writer.append("}\n");
+            var shardParams = new ArrayList<String>();
+            shardParams.add("com.inputforge.dbx.ConnectionSource connections");
+            shardParams.addAll(declaredParams);
+            writeSignature(writer, "private", returnType.toString(), shardName, shardParams);
+        } else if (shard != null) {
+            writer.append("var connections = this.connections.shard(")
+                    .append(shard.getKeyName())
+                    .append(");\n");
+        }
+
+        if (inListChunked) {
+            var chunkName = name + "$chunk";
+            writeChunks(writer, chunkName);
+            writer.append("}\n");
+            var chunkParams = new ArrayList<String>();
+            chunkParams.add("com.inputforge.dbx.ConnectionSource connections");
+            chunkParams.addAll(declaredParams);
+            var collection = params.get(inListParam);
+            chunkParams.set(inListParam + 1,
+                    "java.util.Collection<" + collection.getElementType() + "> " + collection.getName());
+            writeSignature(writer, "private", returnType.toString(), chunkName, chunkParams);
+        }
+
+        if (isStreaming()) {
+            writer.append("var limitGranted = ")
+                    .append(getLimiterField())
+                    .append(".acquire();\n")
+                    .append("try {\n");
+        } else if (!limitsSubCalls) {
+            openLimit(writer);
+        }
+        if (invalidatedCaches.isEmpty()) {
+            generateMethodBody(writer);
+        } else {
+            writer.append("try {\n");
+            generateMethodBody(writer);
+            writer.append("} finally {\n")
+                    .append("connections.invalidate(")
+                    .append(String.join(", ", invalidatedCaches))
+                    .append(");\n")
+                    .append("}\n");
+        }
+        if (isStreaming()) {
+            closeStreamingLimit(writer);
+        } else if (!limitsSubCalls) {
+            closeLimit(writer);
+        }
+        writer.append("}\n");
+    }
+
+    /**
+     * Holds a permit of the method's limiter while the query runs, reporting failures so adaptive
+     * limits can tell timeouts apart.
+     */
+    private void openLimit(Writer writer) throws IOException {
+        writer.append("var limitGranted = ")
+                .append(getLimiterField())
+                .append(".acquire();\n")
+                .append("Throwable limitFailure = null;\n")
+                .append("try {\n");
+    }
+
+    private void closeLimit(Writer writer) throws IOException {
+        writer.append("} catch (RuntimeException | Error failure) {\n")
+                .append("limitFailure = failure;\n")
+                .append("throw failure;\n")
+                .append("} finally {\n")
+                .append(getLimiterField())
+                .append(".release(limitGranted, limitFailure);\n")
+                .append("}\n");
+    }
+
+    /**
+     * Returns the permit of a streaming call that failed before handing out its rows. Otherwise
+     * the cursor or result set returns it when closed, as the rows are read until then.
+     */
+    private void closeStreamingLimit(Writer writer) throws IOException {
+        writer.append("} catch (RuntimeException | Error failure) {\n")
+                .append(getLimiterField())
+                .append(".release(limitGranted, failure);\n")
+                .append("throw failure;\n")
+                .append("}\n");
+    }
+
+    /**
+     * Runs the method on every shard, passing each shard's connections in place of the DAO's.
+     */
+    private void writeScatter(Writer writer, String shardName) throws IOException {
+        var arguments = new ArrayList<String>();
+        arguments.add("shardConnections");
+        arguments.addAll(argumentNames);
+        var shardCall = shardName + "(" + String.join(", ", arguments) + ")";
+
+        var merge = shard.getMerge();
+        if (merge == null) {
+            writer.append("com.inputforge.dbx.shard.ScatterGather.all(connections.shards(), connections.supportsParallelCalls(), executor, shardConnections -> {\n")
+                    .append(shardCall)
+                    .append(";\n")
+                    .append("return null;\n")
+                    .append("});\n");
+            return;
+        }
+        writer.append("return ")
+                .append(mergeCall(merge))
+                .append("(com.inputforge.dbx.shard.ScatterGather.all(connections.shards(), connections.supportsParallelCalls(), executor, shardConnections -> ")
+                .append(shardCall)
+                .append("));\n");
+    }
+
+    /**
+     * Runs the method once for collections up to the chunk size, otherwise once per chunk, merging
+     * the results like those of shards.
+     */
+    private void writeChunks(Writer writer, String chunkName) throws IOException {
+        var collection = params.get(inListParam).getName();
+        var arguments = new ArrayList<String>();
+        arguments.add("connections");
+        arguments.addAll(argumentNames);
+        var directCall = chunkName + "(" + String.join(", ", arguments) + ")";
+        arguments.set(inListParam + 1, "inListChunk");
+        var chunkCall = chunkName + "(" + String.join(", ", arguments) + ")";
+
+        var merge = ShardSpec.merge(returnType, query);
+        writer.append("if (")
+                .append(collection)
+                .append(".size() <= options.inListChunkSize()) {\n");
+        if (merge == null) {
+            writer.append(directCall)
+                    .append(";\n")
+                    .append("return;\n");
+        } else {
+            writer.append("return ")
+                    .append(directCall)
+                    .append(";\n");
+        }
+        writer.append("}\n");
+
+        var chunks = "com.inputforge.dbx.InList.chunks(" + collection
+                + ", options.inListChunkSize(), options.parallelInListChunks() && connections.supportsParallelCalls(), executor, inListChunk -> ";
+        if (merge == null) {
+            writer.append(chunks)
+                    .append("{\n")
+                    .append(chunkCall)
+                    .append(";\n")
+                    .append("return null;\n")
+                    .append("});\n");
+            return;
+        }
+        writer.append("return ")
+                .append(mergeCall(merge))
+                .append("(")
+                .append(chunks)
+                .append(chunkCall)
+                .append("));\n");
+    }
+
+    // javac cannot infer the comparable type of max and min through ScatterGather.all
+    private String mergeCall(String merge) {
+        var witness = merge.equals("max") || merge.equals("min") ? "<" + boxedReturnType + ">" : "";
+        return "com.inputforge.dbx.shard.ScatterGather." + witness + merge;
+    }
+
+    private String singleKeyBatch() {
+        return name + "$batch(java.util.Collections.singletonList(" + coalesce.getKeyName() + ")).get("
+                + coalesce.getKeyName() + ")";
+    }
+
+    private void writeCoalescedBatch(Writer writer) throws IOException {
+        var keyType = coalesce.getKeyType();
+        var valueType = returnType.toString();
+        writer.append("private java.util.Map<")
+                .append(keyType)
+                .append(", ")
+                .append(valueType)
+                .append("> ")
                 .append(name)
+                .append("$batch(java.util.List<")
+                .append(keyType)
+                .append("> keys) {\n");
+
+        openLimit(writer);
+        openConnection(writer);
+        writer.append("var statement = statements.prepare(")
+                .append(getInListField())
+                .append(".sql(keys.size()));\n")
+                .append("try {\n")
+                .append("var size = com.inputforge.dbx.InList.paddedSize(keys.size());\n")
+                .append("for (int i = 0; i < size; i++) {\n")
+                .append("var key = keys.get(Math.min(i, keys.size() - 1));\n")
+                .append(ParameterSpec.of("key", keyType).bind("statement", "i + 1"))
+                .append("}\n");
+        markTimer(writer, "prepared()");
+
+        writer.append("try (var resultSet = statement.executeQuery()) {\n");
+        markTimer(writer, "executed()");
+        writer.append("var keyColumn = resultSet.findColumn(\"")
+                .append(CoalesceSpec.KEY_LABEL)
+                .append("\");\n")
+                .append("com.inputforge.dbx.RowMapper<")
+                .append(valueType)
+                .append("> mapper = ")
+                .append(rowMapping(returnType))
+                .append(";\n")
+                .append("var result = new java.util.HashMap<")
+                .append(keyType)
+                .append(", ")
+                .append(valueType)
+                .append(">();\n")
+                .append("while (resultSet.next()) {\n")
+                .append("result.putIfAbsent(")
+                .append(ColumnReader.read(keyType, "resultSet", "keyColumn"))
+                .append(", mapper.map(resultSet));\n")
+                .append("}\n");
+        markTimer(writer, "finish(result.size())");
+        writer.append("return result;\n")
+                .append("}\n");
+
+        closeCachedStatement(writer);
+        closeConnection(writer);
+        closeLimit(writer);
+        writer.append("}\n");
+    }
+
+    /**
+     * Serves the call from the cache, filling it on a miss. Inside a transaction the query runs
+     * uncached, so rows other threads cannot see yet never reach the shared cache.
+     */
+    private void writeCacheLookup(Writer writer, String loadName) throws IOException {
+        var field = getCacheField();
+        writer.append("if (connections.isInTransaction()) {\n")
+                .append("return ")
+                .append(unmodifiable(call(loadName)))
+                .append(";\n")
+                .append("}\n")
+                .append("var cacheKey = ")
+                .append(argumentsKey())
+                .append(";\n")
+                .append("var cached = ")
+                .append(field)
+                .append(".get(cacheKey);\n")
+                .append("if (cached != null) {\n")
+                .append("return cached.value();\n")
+                .append("}\n")
+                .append("var cacheGeneration = ")
+                .append(field)
+                .append(".generation();\n")
+                .append("var result = ")
+                .append(unmodifiable(call(loadName)))
+                .append(";\n")
+                .append(field)
+                .append(".put(cacheKey, result, cacheGeneration);\n")
+                .append("return result;\n");
+    }
+
+    private String call(String methodName) {
+        return methodName + "(" + String.join(", ", argumentNames) + ")";
+    }
+
+    /**
+     * Returns the key identifying a call's arguments: the single argument itself, or a list of
+     * all of them.
+     */
+    private String argumentsKey() {
+        if (argumentNames.isEmpty()) {
+            return "com.inputforge.dbx.cache.QueryCache.NO_ARGUMENTS";
+        }
+        if (argumentNames.size() == 1) {
+            return argumentNames.get(0);
+        }
+        return "java.util.Arrays.asList(" + String.join(", ", argumentNames) + ")";
+    }
+
+    /**
+     * Wraps a loaded collection so callers cannot modify an instance shared with other callers.
+     */
+    private String unmodifiable(String expression) {
+        if (!(returnType instanceof DeclaredType)) {
+            return expression;
+        }
+        switch (((DeclaredType) returnType).asElement().toString()) {
+            case "java.util.List":
+                return "java.util.Collections.unmodifiableList(" + expression + ")";
+            case "java.util.Set":
+                return "java.util.Collections.unmodifiableSet(" + expression + ")";
+            case "java.util.Collection":
+                return "java.util.Collections.unmodifiableCollection(" + expression + ")";
+            case "java.util.Map":
+                return "java.util.Collections.unmodifiableMap(" + expression + ")";
+            default:
+                return expression;
+        }
+    }
+
+    private void writeSignature(Writer writer, String modifiers, String type, String methodName)
+            throws IOException {
+        writeSignature(writer, modifiers, type, methodName, declaredParams);
+    }
+
+    private void writeSignature(Writer writer, String modifiers, String type, String methodName,
+                                List<String> parameters) throws IOException {
+        writer.append(modifiers)
+                .append(" ")
+                .append(type)
+                .append(" ")
+                .append(methodName)
                 .append("(");
 
-        for (int i = 0; i < params.size(); i++) {
+        for (int i = 0; i < parameters.size(); i++) {
             if (i > 0) {
                 writer.append(", ");
             }
 
-            writer.append(params.get(i).toString());
+            writer.append(parameters.get(i));
         }
 
         writer.append(") {\n");
+    }
 
-        generateMethodBody(writer);
+    private void generateMethodBody(Writer writer) throws IOException {
+        if (isStreaming()) {
+            generateStreamingMethodBody(writer);
+            return;
+        }
 
+        if (batch != null) {
+            generateBatchMethodBody(writer);
+            return;
+        }
+
+        if (!SqlText.isQuery(query)) {
+            generateUpdateMethodBody(writer);
+            return;
+        }
+
+        openConnection(writer);
+        openCachedStatement(writer);
+
+        writeBindings(writer);
+        if (hedge != null) {
+            writer.append("hedgeAttempt.started(statement);\n");
+        }
+        markTimer(writer, "prepared()");
+
+        writer.append("try (var resultSet = statement.executeQuery()) {\n");
+        markTimer(writer, "executed()");
+        processResultSet(writer);
         writer.append("}\n");
 
+        closeCachedStatement(writer);
+        closeConnection(writer);
     }
 
-    private void generateMethodBody(Writer writer) throws IOException {
-        writer.append("try (var statement = connection.prepareStatement(\"")
-                .append(quoteJavaString(query))
-                .append("\")) {\n");
+    /**
+     * Binds the parameters in order; those after an IN list are shifted by its padded size.
+     */
+    private void writeBindings(Writer writer) throws IOException {
+        if (inListParam < 0) {
+            for (int i = 0; i < params.size(); i++) {
+                writer.append(params.get(i).bind("statement", String.valueOf(i + 1)));
+            }
+            return;
+        }
 
-        for (int i = 0; i < params.size(); i++) {
-            var param = params.get(i);
-            writer.append("statement.setObject(").append(String.valueOf(i + 1)).append(", ")
-                    .append(param.getName())
-                    .append(",")
-                    .append(param.getSqlType())
-                    .append(");\n");
+        writer.append("var inListSize = com.inputforge.dbx.InList.paddedSize(")
+                .append(params.get(inListParam).getName())
+                .append(inListChunked ? ".size(), options.inListChunkSize());\n" : ".size());\n");
+        for (int i = 0; i < inListParam; i++) {
+            writer.append(params.get(i).bind("statement", String.valueOf(i + 1)));
+        }
+        writer.append(params.get(inListParam).bindAll("statement", String.valueOf(inListParam + 1), "inListSize"));
+        for (int i = inListParam + 1; i < params.size(); i++) {
+            writer.append(params.get(i).bind("statement", "inListSize + " + i));
         }
+    }
 
-        writer.append("var resultSet = statement.executeQuery();\n");
+    private void openConnection(Writer writer) throws IOException {
+        startTimer(writer);
+        writer.append("try {\n")
+                .append("var statements = ")
+                .append(acquireConnection())
+                .append(";\n")
+                .append("try {\n");
+    }
 
-        processResultSet(writer);
+    private String acquireConnection() {
+        return readOnly ? "connections.acquire(true)" : "connections.acquire()";
+    }
+
+    private void closeConnection(Writer writer) throws IOException {
+        writer.append("} finally {\n")
+                .append("connections.release(statements);\n")
+                .append("}\n");
+        catchFailures(writer);
+    }
+
+    private void startTimer(Writer writer) throws IOException {
+        writer.append("var timer = com.inputforge.dbx.metrics.QueryTimer.start(metrics, ")
+                .append(queryId)
+                .append(");\n");
+    }
+
+    private void markTimer(Writer writer, String call) throws IOException {
+        writer.append("if (timer != null) {\n")
+                .append("timer.")
+                .append(call)
+                .append(";\n")
+                .append("}\n");
+    }
+
+    private void catchFailures(Writer writer) throws IOException {
+        writer.append("} catch (java.sql.SQLException sqlException) {\n");
+        markFailure(writer, "sqlException");
+        writer.append("throw new RuntimeException(sqlException);\n")
+                .append("} catch (RuntimeException failure) {\n");
+        markFailure(writer, "failure");
+        writer.append("throw failure;\n")
+                .append("}\n");
+    }
+
+    private void markFailure(Writer writer, String failure) throws IOException {
+        if (hedge == null) {
+            markTimer(writer, "failed(" + failure + ")");
+            return;
+        }
+        // The losing attempt of a hedge fails because it was cancelled, not because of the query
+        writer.append("if (timer != null) {\n")
+                .append("if (hedgeAttempt.isCancelled()) {\n")
+                .append("timer.cancelled();\n")
+                .append("} else {\n")
+                .append("timer.failed(")
+                .append(failure)
+                .append(");\n")
+                .append("}\n")
+                .append("}\n");
+    }
+
+    private void writeReturn(Writer writer, String expression, String rows) throws IOException {
+        writer.append("var result = ")
+                .append(expression)
+                .append(";\n");
+        markTimer(writer, "finish(" + rows + ")");
+        writer.append("return result;\n");
+    }
 
-        writer.append("} catch (java.sql.SQLException e) {\n")
-                .append("throw new RuntimeException(e);\n")
+    private void openCachedStatement(Writer writer) throws IOException {
+        writer.append("var statement = statements.prepare(");
+        if (inListParam >= 0) {
+            writer.append(getInListField())
+                    .append(".sql(")
+                    .append(params.get(inListParam).getName())
+                    .append(inListChunked ? ".size(), options.inListChunkSize())" : ".size())");
+        } else {
+            writer.append("\"")
+                    .append(getQuotedQuery())
+                    .append("\"");
+        }
+        writer.append(");\n")
+                .append("try {\n");
+    }
+
+    private void closeCachedStatement(Writer writer) throws IOException {
+        writer.append("} finally {\n");
+        if (hedge != null) {
+            writer.append("hedgeAttempt.finished();\n");
+        }
+        writer.append("statements.release(statement);\n")
                 .append("}\n");
     }
 
+    private void generateStreamingMethodBody(Writer writer) throws IOException {
+        startTimer(writer);
+        writer.append("try {\n")
+                .append("var statements = ")
+                .append(acquireConnection())
+                .append(";\n")
+                .append("try {\n")
+                .append("var statement = statements.connection().prepareStatement(\"")
+                .append(getQuotedQuery())
+                .append("\");\n")
+                .append("try {\n")
+                .append("statement.setFetchSize(")
+                .append(fetchSize > 0 ? String.valueOf(fetchSize) : "options.streamingFetchSize()")
+                .append(");\n");
+
+        writeBindings(writer);
+
+        markTimer(writer, "prepared()");
+
+        writer.append("var resultSet = statement.executeQuery();\n");
+        markTimer(writer, "executed()");
+        if (returnType.toString().equals("java.sql.ResultSet")) {
+            markTimer(writer, "finish(0)");
+            writer.append("statement.closeOnCompletion();\n")
+                    .append("return connections.releaseOnClose(statements, resultSet, ")
+                    .append(getLimiterField())
+                    .append(", limitGranted);\n");
+        } else {
+            var declaredType = (DeclaredType) returnType;
+            writer.append("return com.inputforge.dbx.ResultSetMapper.mapToCursor(connections, statements, statement, resultSet, ")
+                    .append(rowMapping(declaredType.getTypeArguments().get(0)))
+                    .append(", timer, ")
+                    .append(getLimiterField())
+                    .append(", limitGranted)");
+            if (declaredType.asElement().toString().equals("java.util.stream.Stream")) {
+                writer.append(".stream()");
+            }
+            writer.append(";\n");
+        }
+
+        writer.append("} catch (java.sql.SQLException | RuntimeException failure) {\n")
+                .append("statement.close();\n")
+                .append("throw failure;\n")
+                .append("}\n")
+                .append("} catch (java.sql.SQLException | RuntimeException failure) {\n")
+                .append("connections.release(statements);\n")
+                .append("throw failure;\n")
+                .append("}\n");
+        catchFailures(writer);
+    }
+
+    private void generateUpdateMethodBody(Writer writer) throws IOException {
+        openWriteStatement(writer);
+
+        writeBindings(writer);
+        markTimer(writer, "prepared()");
+
+        var type = returnType.toString();
+        if (keyColumns != null) {
+            writer.append("statement.executeUpdate();\n");
+            markTimer(writer, "executed()");
+            writer.append("try (var generatedKeys = statement.getGeneratedKeys()) {\n")
+                    .append("if (!generatedKeys.next()) {\n");
+            if (returnType.getKind().isPrimitive()) {
+                writer.append("throw new java.util.NoSuchElementException(\"")
+                        .append(name)
+                        .append(" generated no keys\");\n");
+            } else {
+                markTimer(writer, "finish(0)");
+                writer.append("return null;\n");
+            }
+            writer.append("}\n");
+            writeReturn(writer, ColumnReader.read(type, "generatedKeys", "1"), "1");
+            writer.append("}\n");
+        } else {
+            writer.append("var result = ")
+                    .append(type.equals("long") ? "statement.executeLargeUpdate()" : "statement.executeUpdate()")
+                    .append(";\n");
+            markTimer(writer, "executed()");
+            markTimer(writer, "finish(result)");
+            if (!type.equals("void")) {
+                writer.append("return result;\n");
+            }
+        }
+
+        closeWriteStatement(writer);
+    }
+
+    private void generateBatchMethodBody(Writer writer) throws IOException {
+        openWriteStatement(writer);
+
+        var type = returnType.toString();
+        if (keyColumns != null && type.equals("long[]")) {
+            writer.append("var results = new com.inputforge.dbx.collection.LongList();\n");
+        } else if (keyColumns != null) {
+            writer.append("var results = new java.util.ArrayList<")
+                    .append(((DeclaredType) returnType).getTypeArguments().get(0).toString())
+                    .append(">();\n");
+        } else if (type.equals("int[]")) {
+            writer.append("var results = new com.inputforge.dbx.collection.IntList();\n");
+        }
+
+        markTimer(writer, "prepared()");
+        writer.append("var batched = 0L;\n")
+                .append("var pending = 0;\n")
+                .append("for (var ")
+                .append(BatchSpec.ITEM)
+                .append(" : ")
+                .append(batch.getIterable())
+                .append(") {\n");
+        var batchParams = batch.getParams();
+        for (int i = 0; i < batchParams.size(); i++) {
+            writer.append(batchParams.get(i).bind("statement", String.valueOf(i + 1)));
+        }
+        writer.append("statement.addBatch();\n")
+                .append("batched++;\n")
+                .append("if (++pending == ")
+                .append(batch.getSizeExpression())
+                .append(") {\n");
+        executeBatch(writer);
+        writer.append("pending = 0;\n")
+                .append("}\n")
+                .append("}\n")
+                .append("if (pending > 0) {\n");
+        executeBatch(writer);
+        writer.append("}\n");
+        markTimer(writer, "executed()");
+        markTimer(writer, "finish(batched)");
+
+        if (type.equals("long[]") || type.equals("int[]")) {
+            writer.append("return results.toArray();\n");
+        } else if (!type.equals("void")) {
+            writer.append("return results;\n");
+        }
+
+        closeWriteStatement(writer);
+    }
+
+    private void executeBatch(Writer writer) throws IOException {
+        if (keyColumns != null) {
+            var keyType = returnType.toString().equals("long[]")
+                    ? "long"
+                    : ((DeclaredType) returnType).getTypeArguments().get(0).toString();
+            writer.append("statement.executeBatch();\n")
+                    .append("try (var generatedKeys = statement.getGeneratedKeys()) {\n")
+                    .append("while (generatedKeys.next()) {\n")
+                    .append("results.add(")
+                    .append(ColumnReader.read(keyType, "generatedKeys", "1"))
+                    .append(");\n")
+                    .append("}\n")
+                    .append("}\n");
+        } else if (returnType.toString().equals("int[]")) {
+            writer.append("results.addAll(statement.executeBatch());\n");
+        } else {
+            writer.append("statement.executeBatch();\n");
+        }
+    }
+
+    private void openWriteStatement(Writer writer) throws IOException {
+        openConnection(writer);
+        if (keyColumns == null) {
+            openCachedStatement(writer);
+            return;
+        }
+
+        writer.append("try (var statement = statements.connection().prepareStatement(\"")
+                .append(getQuotedQuery())
+                .append("\", ");
+        if (keyColumns.length == 0) {
+            writer.append("java.sql.Statement.RETURN_GENERATED_KEYS");
+        } else {
+            writer.append("new String[] {");
+            for (int i = 0; i < keyColumns.length; i++) {
+                if (i > 0) {
+                    writer.append(", ");
+                }
+                writer.append("\"").append(quoteJavaString(keyColumns[i])).append("\"");
+            }
+            writer.append("}");
+        }
+        writer.append(")) {\n");
+    }
+
+    private void closeWriteStatement(Writer writer) throws IOException {
+        if (keyColumns == null) {
+            closeCachedStatement(writer);
+        } else {
+            writer.append("}\n");
+        }
+        closeConnection(writer);
+    }
+
+    /**
+     * Sets the position of the method within its DAO, which names its generated fields.
+     */
+    public void setIndex(int index) {
+        this.index = index;
+        this.queryId = "QUERY_" + index;
+    }
+
+    public Optional<CacheSpec> getCache() {
+        return Optional.ofNullable(cache);
+    }
+
+    public String getCacheField() {
+        return "cache$" + index;
+    }
+
+    private String getSingleFlightField() {
+        return "flights$" + index;
+    }
+
+    private String getCoalescerField() {
+        return "coalescer$" + index;
+    }
+
+    private String getLimiterField() {
+        return "limiter$" + index;
+    }
+
+    private String getHedgerField() {
+        return "hedger$" + index;
+    }
+
+    private String getInListField() {
+        return "IN_LIST_" + index;
+    }
+
+    /**
+     * Writes the per-DAO fields backing the method's cache, coalescer and IN list.
+     */
+    public void writeFields(Writer writer) throws IOException {
+        writer.append("private final com.inputforge.dbx.limit.ConcurrencyLimiter ")
+                .append(getLimiterField())
+                .append(" = options.limiter(\"")
+                .append(name)
+                .append("\");\n");
+        if (cache != null) {
+            cache.writeField(writer, getCacheField());
+        }
+        if (singleFlight) {
+            writer.append("private final com.inputforge.dbx.SingleFlightGroup<Object, ")
+                    .append(boxedReturnType)
+                    .append("> ")
+                    .append(getSingleFlightField())
+                    .append(" = new com.inputforge.dbx.SingleFlightGroup<>();\n");
+        }
+        if (hedge != null) {
+            hedge.writeField(writer, getHedgerField(), boxedReturnType, queryId);
+        }
+        if (coalesce != null) {
+            coalesce.writeFields(writer, getInListField(), getCoalescerField(), returnType.toString(),
+                    name + "$batch");
+        }
+        if (inListParam >= 0) {
+            writer.append("private static final com.inputforge.dbx.InList ")
+                    .append(getInListField())
+                    .append(" = new com.inputforge.dbx.InList(\"")
+                    .append(quoteJavaString(inListPrefix))
+                    .append("\", \"")
+                    .append(quoteJavaString(inListSuffix))
+                    .append("\");\n");
+        }
+    }
+
+    /**
+     * Tables a write method modifies; empty for queries.
+     */
+    public Set<String> getWrittenTables() {
+        return writtenTables;
+    }
+
+    public void setInvalidatedCaches(List<String> invalidatedCaches) {
+        this.invalidatedCaches = invalidatedCaches;
+    }
+
+    public void writeQueryId(Writer writer, String daoType) throws IOException {
+        writer.append("private static final com.inputforge.dbx.metrics.QueryId ")
+                .append(queryId)
+                .append(" = new com.inputforge.dbx.metrics.QueryId(\"")
+                .append(daoType)
+                .append("\", \"")
+                .append(name)
+                .append("\", \"")
+                .append(getQuotedQuery())
+                .append("\");\n");
+    }
+
+    public boolean usesStatementCache() {
+        return !isStreaming() && keyColumns == null && coalesce == null && inListParam < 0;
+    }
+
     private void processResultSet(Writer writer) throws IOException {
-        if (returnType.toString().equals("void")) {
+        var type = returnType.toString();
+        if (type.equals("void")) {
+            markTimer(writer, "finish(0)");
             writer.append("return;\n");
             return;
         }
 
-        switch (returnType.toString()) {
-            case "java.sql.ResultSet":
-                writer.append("return resultSet;\n");
-                break;
-            case "byte":
-            case "java.lang.Byte":
-                writer.append("return resultSet.getByte(1);\n");
-                break;
-            case "short":
-            case "java.lang.Short":
-                writer.append("return resultSet.getShort(1);\n");
-                break;
-            case "int":
-            case "java.lang.Integer":
-                writer.append("return resultSet.getInt(1);\n");
-                break;
-            case "long":
-            case "java.lang.Long":
-                writer.append("return resultSet.getLong(1);\n");
-                break;
-            case "float":
-            case "java.lang.Float":
-                writer.append("return resultSet.getFloat(1);\n");
-                break;
-            case "double":
-            case "java.lang.Double":
-                writer.append("return resultSet.getDouble(1);\n");
-                break;
-            case "boolean":
-            case "java.lang.Boolean":
-                writer.append("return resultSet.getBoolean(1);\n");
-                break;
-            case "java.lang.String":
-                writer.append("return resultSet.getString(1);\n");
-                break;
-            case "java.sql.Date":
-                writer.append("return resultSet.getDate(1);\n");
-                break;
-            case "java.util.Date":
-                writer.append("return resultSet.getDate(1)\n");
-                break;
-            case "java.time.LocalDate":
-                writer.append("return resultSet.getObject(1, java.time.LocalDate)\n");
-                break;
-            case "java.sql.Time":
-                writer.append("return resultSet.getTime(1);\n");
-                break;
-            case "java.time.LocalTime":
-                writer.append("return resultSet.getObject(1, java.time.LocalTime)\n");
-                break;
-            case "java.sql.Timestamp":
-                writer.append("return resultSet.getTimestamp(1);\n");
-                break;
-            case "java.time.LocalDateTime":
-                writer.append("return resultSet.getObject(1, java.time.LocalDateTime)\n");
-                break;
-            case "java.time.OffsetDateTime":
-                writer.append("return resultSet.getObject(1, java.time.OffsetDateTime)\n");
-                break;
-            case "java.time.Instant":
-                writer.append("return resultSet.getObject(1, java.time.Instant)\n");
-                break;
-            case "java.math.BigDecimal":
-                writer.append("return resultSet.getBigDecimal(1);\n");
-                break;
-            case "java.sql.Array":
-                writer.append("return resultSet.getArray(1);\n");
-                break;
-            case "java.sql.Blob":
-                writer.append("return resultSet.getBlob(1);\n");
-                break;
-            case "java.sql.Clob":
-                writer.append("return resultSet.getClob(1);\n");
-                break;
-            case "java.sql.Ref":
-                writer.append("return resultSet.getRef(1);\n");
-                break;
-            case "java.sql.RowId":
-                writer.append("return resultSet.getRowId(1);\n");
-                break;
-            case "java.sql.NClob":
-                writer.append("return resultSet.getNClob(1);\n");
-                break;
-            case "java.sql.SQLXML":
-                writer.append("return resultSet.getSQLXML(1);\n");
-                break;
-            case "java.net.URL":
-                writer.append("return resultSet.getURL(1);\n");
-                break;
-            default:
-                mapCompoundType(writer, (DeclaredType) returnType);
+        if (map != null) {
+            writer.append("var keyColumn = com.inputforge.dbx.ResultSetMapper.columnIndexes(resultSet, \"")
+                    .append(quoteJavaString(map.getKeyColumn()))
+                    .append("\")[0];\n");
+            String mapping;
+            if (rowMapper != null) {
+                mapping = newRowMapper();
+            } else {
+                // Scalar values come from the first column besides the key
+                writer.append("var valueColumn = keyColumn == 1 ? 2 : 1;\n");
+                mapping = "row -> " + ColumnReader.read(map.getValueType().toString(), "row", "valueColumn");
+            }
+            writeReturn(writer, map.mapping(mapping, expectedRows > 0 ? expectedRows : fetchSize), "result.size()");
+            return;
         }
 
+        if (ColumnReader.isSupported(type)) {
+            writer.append("if (!resultSet.next()) {\n");
+            if (returnType.getKind().isPrimitive()) {
+                writer.append("throw new java.util.NoSuchElementException(\"")
+                        .append(name)
+                        .append(" returned no rows\");\n");
+            } else {
+                markTimer(writer, "finish(0)");
+                writer.append("return null;\n");
+            }
+            writer.append("}\n");
+            writeReturn(writer, ColumnReader.read(type, "resultSet", "1"), "1");
+            return;
+        }
+
+        if (ColumnsSpec.isColumnar(returnType)) {
+            writeReturn(writer, type + ".read(resultSet, " + (expectedRows > 0 ? expectedRows : fetchSize) + ")",
+                    "result.size()");
+            return;
+        }
+
+        if (type.equals(ROW_LIST)) {
+            writeReturn(writer, ROW_LIST + ".read(resultSet, " + (expectedRows > 0 ? expectedRows : fetchSize)
+                    + ", options.rowListMemory(), options.spillDirectory())", "result.size()");
+            return;
+        }
+
+        var primitiveMapping = primitiveResults.get(type);
+        if (primitiveMapping != null) {
+            var array = returnType.getKind() == TypeKind.ARRAY;
+            writeReturn(writer,
+                    "com.inputforge.dbx.ResultSetMapper." + primitiveMapping + "(resultSet, "
+                            + (expectedRows > 0 ? expectedRows : fetchSize) + ")" + (array ? ".toArray()" : ""),
+                    array ? "result.length" : "result.size()");
+            return;
+        }
+
+        if (rowMapper != null && rowMapper.getTargetType().equals(type)) {
+            writeReturn(writer,
+                    "com.inputforge.dbx.ResultSetMapper.mapToObject(resultSet, " + newRowMapper() + ")",
+                    "result == null ? 0 : 1");
+            return;
+        }
+
+        mapCompoundType(writer, (DeclaredType) returnType);
+    }
+
+    private String newRowMapper() {
+        return "new " + rowMapper.getClassName() + "(resultSet)";
+    }
+
+    private String rowMapping(TypeMirror type) {
+        return rowMapper != null
+                ? newRowMapper()
+                : "row -> " + ColumnReader.read(type.toString(), "row", "1");
     }
 
     private void mapCompoundType(Writer writer, DeclaredType returnType) throws IOException {
         var clazz = returnType.asElement().toString();
         var type = returnType.getTypeArguments().get(0);
 
+        var mapping = rowMapping(type);
+
         switch (clazz) {
             case "java.util.List":
             case "java.util.Collection":
-                writer.append("return com.inputforge.dbx.ResultSetMapper.mapToList(resultSet, 1,")
-                        .append(type.toString())
-                        .append(".class);\n");
+                writeReturn(writer, "com.inputforge.dbx.ResultSetMapper.mapToList(resultSet, " + mapping + ")",
+                        "result.size()");
                 break;
             case "java.util.Set":
-                writer.append("return com.inputforge.dbx.ResultSetMapper.mapToSet(resultSet, 1,")
-                        .append(type.toString())
-                        .append(".class);\n");
+                writeReturn(writer, "com.inputforge.dbx.ResultSetMapper.mapToSet(resultSet, " + mapping + ")",
+                        "result.size()");
                 break;
             default:
                 throw new IllegalArgumentException("Unsupported return type: " + clazz);
         }
     }
 
-    private String quoteJavaString(String value) {
+    public String getQuotedQuery() {
+        return quoteJavaString(query);
+    }
+
+    static String quoteJavaString(String value) {
         return value
                 .replace("\\", "\\\\")
                 .replace("\"", "\\\"");
@@ -1,11 +1,43 @@
 package com.inputforge.dbx.codegen;
 
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import java.util.Map;
+import java.util.Set;
 
 public class ParameterSpec {
+    private static final Map<String, String> setters = Map.ofEntries(
+            Map.entry("byte", "setByte"),
+            Map.entry("java.lang.Byte", "setByte"),
+            Map.entry("short", "setShort"),
+            Map.entry("java.lang.Short", "setShort"),
+            Map.entry("int", "setInt"),
+            Map.entry("java.lang.Integer", "setInt"),
+            Map.entry("long", "setLong"),
+            Map.entry("java.lang.Long", "setLong"),
+            Map.entry("float", "setFloat"),
+            Map.entry("java.lang.Float", "setFloat"),
+            Map.entry("double", "setDouble"),
+            Map.entry("java.lang.Double", "setDouble"),
+            Map.entry("boolean", "setBoolean"),
+            Map.entry("java.lang.Boolean", "setBoolean"),
+            Map.entry("java.lang.String", "setString"),
+            Map.entry("java.math.BigDecimal", "setBigDecimal"),
+            Map.entry("java.sql.Date", "setDate"),
+            Map.entry("java.sql.Time", "setTime"),
+            Map.entry("java.sql.Timestamp", "setTimestamp")
+    );
+
+    private static final Set<String> expandedCollections = Set.of(
+            "java.util.Collection",
+            "java.util.List",
+            "java.util.Set"
+    );
+
     private final String name;
     private final String type;
     private final String sqlType;
+    private String elementType;
 
     public ParameterSpec(String name, String type, String sqlType) {
         this.name = name;
@@ -14,6 +46,15 @@ public class ParameterSpec {
     }
 
     public static ParameterSpec from(VariableElement parameter) {
+        var type = parameter.asType();
+        if (type instanceof DeclaredType
+                && expandedCollections.contains(((DeclaredType) type).asElement().toString())
+                && ((DeclaredType) type).getTypeArguments().size() == 1) {
+            var elementType = ((DeclaredType) type).getTypeArguments().get(0).toString();
+            var spec = new ParameterSpec(parameter.getSimpleName().toString(), type.toString(), getSqlType(elementType));
+            spec.elementType = elementType;
+            return spec;
+        }
         return new ParameterSpec(
                 parameter.getSimpleName().toString(),
                 parameter.asType().toString(),
@@ -21,33 +62,48 @@ public class ParameterSpec {
         );
     }
 
+    public static ParameterSpec of(String expression, String type) {
+        return new ParameterSpec(expression, type, getSqlType(type));
+    }
+
     private static String getSqlType(String type) {
         switch (type) {
             case "java.lang.String":
-                return "java.sql.JDBCType.VARCHAR";
+                return "java.sql.Types.VARCHAR";
+            case "java.lang.Byte":
+            case "byte":
+                return "java.sql.Types.TINYINT";
+            case "java.lang.Short":
+            case "short":
+                return "java.sql.Types.SMALLINT";
             case "java.lang.Integer":
             case "int":
-                return "java.sql.JDBCType.INTEGER";
+                return "java.sql.Types.INTEGER";
             case "java.lang.Long":
             case "long":
-                return "java.sql.JDBCType.BIGINT";
+                return "java.sql.Types.BIGINT";
             case "java.lang.Float":
             case "float":
-                return "java.sql.JDBCType.FLOAT";
+                return "java.sql.Types.FLOAT";
             case "java.lang.Double":
             case "double":
-                return "java.sql.JDBCType.DOUBLE";
+                return "java.sql.Types.DOUBLE";
             case "java.lang.Boolean":
             case "boolean":
-                return "java.sql.JDBCType.BOOLEAN";
+                return "java.sql.Types.BOOLEAN";
+            case "java.math.BigDecimal":
+                return "java.sql.Types.DECIMAL";
             case "java.time.LocalDate":
             case "java.sql.Date":
             case "java.util.Date":
-                return "java.sql.JDBCType.DATE";
+                return "java.sql.Types.DATE";
+            case "java.time.LocalTime":
+            case "java.sql.Time":
+                return "java.sql.Types.TIME";
             case "java.time.LocalDateTime":
             case "java.time.Instant":
             case "java.sql.Timestamp":
-                return "java.sql.JDBCType.TIMESTAMP";
+                return "java.sql.Types.TIMESTAMP";
             default:
                 throw new IllegalArgumentException("Unsupported type: " + type);
 
@@ -58,6 +114,64 @@ public class ParameterSpec {
         return sqlType;
     }
 
+    public boolean isPrimitive() {
+        return !type.contains(".");
+    }
+
+    /**
+     * Returns whether this is a collection whose values are bound to an {@code IN (?)} list.
+     */
+    public boolean isCollection() {
+        return elementType != null;
+    }
+
+    public String getElementType() {
+        return elementType;
+    }
+
+    public String bind(String statement, String index) {
+        return bindValue(statement, index, name, type);
+    }
+
+    /**
+     * Binds the values of a collection parameter to {@code size} placeholders from
+     * {@code firstIndex} on, repeating the last value to fill the padding. An empty collection
+     * binds a single {@code NULL}.
+     */
+    public String bindAll(String statement, String firstIndex, String size) {
+        return "var inListValues = " + name + ".iterator();\n"
+                + elementType + " inListValue = null;\n"
+                + "for (int i = 0; i < " + size + "; i++) {\n"
+                + "if (inListValues.hasNext()) {\n"
+                + "inListValue = inListValues.next();\n"
+                + "}\n"
+                + bindValue(statement, firstIndex + " + i", "inListValue", elementType)
+                + "}\n";
+    }
+
+    private String bindValue(String statement, String index, String value, String type) {
+        var setter = setters.get(type);
+        String call;
+        if (setter != null) {
+            call = statement + "." + setter + "(" + index + ", " + value + ");\n";
+        } else if (type.equals("java.util.Date")) {
+            call = statement + ".setDate(" + index + ", new java.sql.Date(" + value + ".getTime()));\n";
+        } else if (type.equals("java.time.Instant")) {
+            call = statement + ".setTimestamp(" + index + ", java.sql.Timestamp.from(" + value + "));\n";
+        } else {
+            call = statement + ".setObject(" + index + ", " + value + ", " + sqlType + ");\n";
+        }
+
+        if (!type.contains(".")) {
+            return call;
+        }
+        return "if (" + value + " == null) {\n"
+                + statement + ".setNull(" + index + ", " + sqlType + ");\n"
+                + "} else {\n"
+                + call
+                + "}\n";
+    }
+
     @Override
     public String toString() {
         return type + " " + name;
@@ -0,0 +1,177 @@
+package com.inputforge.dbx.codegen;
+
+import com.inputforge.dbx.Column;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class RowMapperSpec {
+    private final String targetType;
+    private final String className;
+    private final List<String> columnNames;
+    private final List<String> columnTypes;
+    // The @Column name of each parameter, or null
+    private final List<String> columnLabels;
+
+    public RowMapperSpec(String targetType, String className, List<String> columnNames, List<String> columnTypes,
+                         List<String> columnLabels) {
+        this.targetType = targetType;
+        this.className = className;
+        this.columnNames = columnNames;
+        this.columnTypes = columnTypes;
+        this.columnLabels = columnLabels;
+    }
+
+    public static Optional<RowMapperSpec> from(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return Optional.empty();
+        }
+
+        var element = (TypeElement) ((DeclaredType) type).asElement();
+        if (!element.getKind().isClass()
+                || element.getModifiers().contains(Modifier.ABSTRACT)
+                || !element.getTypeParameters().isEmpty()) {
+            return Optional.empty();
+        }
+
+        return findConstructor(element).map(constructor -> {
+            var columnNames = new ArrayList<String>();
+            var columnTypes = new ArrayList<String>();
+            var columnLabels = new ArrayList<String>();
+            for (var parameter : constructor.getParameters()) {
+                columnNames.add(parameter.getSimpleName().toString());
+                columnTypes.add(parameter.asType().toString());
+                var column = parameter.getAnnotation(Column.class);
+                columnLabels.add(column != null ? column.value() : null);
+            }
+            return new RowMapperSpec(
+                    element.getQualifiedName().toString(),
+                    element.getSimpleName() + "Mapper",
+                    columnNames,
+                    columnTypes,
+                    columnLabels);
+        });
+    }
+
+    private static Optional<ExecutableElement> findConstructor(TypeElement element) {
+        ExecutableElement found = null;
+        boolean ambiguous = false;
+        for (var constructor : ElementFilter.constructorsIn(element.getEnclosedElements())) {
+            if (!constructor.getModifiers().contains(Modifier.PUBLIC)
+                    || constructor.getParameters().isEmpty()
+                    || !constructor.getParameters().stream()
+                    .allMatch(p -> ColumnReader.isSupported(p.asType().toString()))) {
+                continue;
+            }
+
+            if (found == null || constructor.getParameters().size() > found.getParameters().size()) {
+                found = constructor;
+                ambiguous = false;
+            } else if (constructor.getParameters().size() == found.getParameters().size()) {
+                ambiguous = true;
+            }
+        }
+
+        if (ambiguous) {
+            throw new IllegalArgumentException("Cannot choose a constructor to map rows into "
+                    + element.getQualifiedName() + ": several have the same number of parameters");
+        }
+        return Optional.ofNullable(found);
+    }
+
+    public String getTargetType() {
+        return targetType;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public List<String> getColumnTypes() {
+        return columnTypes;
+    }
+
+    /**
+     * Returns the labels the columns are looked up by in a result set: the {@code @Column} name,
+     * or the parameter name, which matches its {@code snake_case} form too.
+     */
+    public List<String> getColumnLabels() {
+        var labels = new ArrayList<String>(columnNames.size());
+        for (int i = 0; i < columnNames.size(); i++) {
+            labels.add(columnLabels.get(i) != null ? columnLabels.get(i) : columnNames.get(i));
+        }
+        return labels;
+    }
+
+    /**
+     * Returns the columns to select, named as the build's column naming says.
+     */
+    public List<String> getSqlColumns(ColumnNaming naming) {
+        var columns = new ArrayList<String>(columnNames.size());
+        for (int i = 0; i < columnNames.size(); i++) {
+            columns.add(columnLabels.get(i) != null ? columnLabels.get(i) : naming.columnName(columnNames.get(i)));
+        }
+        return columns;
+    }
+
+    public void write(Writer writer) throws IOException {
+        writer.append("private static final class ")
+                .append(className)
+                .append(" implements com.inputforge.dbx.RowMapper<")
+                .append(targetType)
+                .append("> {\n");
+
+        for (var columnName : columnNames) {
+            writer.append("private final int ").append(columnName).append("Column;\n");
+        }
+
+        writer.append("\n")
+                .append(className)
+                .append("(java.sql.ResultSet resultSet) throws java.sql.SQLException {\n")
+                .append("var columns = com.inputforge.dbx.ResultSetMapper.columnIndexes(resultSet");
+        for (var label : getColumnLabels()) {
+            writer.append(", \"").append(label).append("\"");
+        }
+        writer.append(");\n");
+        for (int i = 0; i < columnNames.size(); i++) {
+            writer.append("this.")
+                    .append(columnNames.get(i))
+                    .append("Column = columns[")
+                    .append(String.valueOf(i))
+                    .append("];\n");
+        }
+        writer.append("}\n\n");
+
+        writer.append("@Override\n")
+                .append("public ")
+                .append(targetType)
+                .append(" map(java.sql.ResultSet resultSet) throws java.sql.SQLException {\n")
+                .append("return new ")
+                .append(targetType)
+                .append("(");
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (i > 0) {
+                writer.append(",");
+            }
+            writer.append("\n")
+                    .append(ColumnReader.read(columnTypes.get(i), "resultSet", columnNames.get(i) + "Column"));
+        }
+        writer.append(");\n")
+                .append("}\n")
+                .append("}\n\n");
+    }
+}
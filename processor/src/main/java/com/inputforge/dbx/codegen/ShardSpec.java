@@ -0,0 +1,189 @@
+package com.inputforge.dbx.codegen;
+
+import com.inputforge.dbx.ShardKey;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+public class ShardSpec {
+    private final String keyName;
+    private final String merge;
+
+    private ShardSpec(String keyName, String merge) {
+        this.keyName = keyName;
+        this.merge = merge;
+    }
+
+    /**
+     * Returns whether any method of the DAO takes a {@code @ShardKey}, making the others scatter.
+     */
+    public static boolean isSharded(TypeElement dao) {
+        return dao.getEnclosedElements()
+                .stream()
+                .filter(e -> e instanceof ExecutableElement)
+                .flatMap(e -> ((ExecutableElement) e).getParameters().stream())
+                .anyMatch(p -> p.getAnnotation(ShardKey.class) != null);
+    }
+
+    public static ShardSpec from(ExecutableElement method, TypeMirror returnType, String sql) {
+        var keys = method.getParameters()
+                .stream()
+                .filter(p -> p.getAnnotation(ShardKey.class) != null)
+                .map(p -> p.getSimpleName().toString())
+                .collect(Collectors.toList());
+        if (keys.size() > 1) {
+            throw new IllegalArgumentException("Only one parameter can be a @ShardKey");
+        }
+        if (keys.size() == 1) {
+            return new ShardSpec(keys.get(0), null);
+        }
+        var problem = mergeProblem(returnType, sql);
+        if (problem != null) {
+            throw new IllegalArgumentException("Cannot merge the results of all shards, " + problem
+                    + "; add a @ShardKey parameter");
+        }
+        return new ShardSpec(null, merge(returnType, sql));
+    }
+
+    /**
+     * Returns why the results of several calls of the query, such as those of all shards, cannot
+     * be merged into the result of one call, or {@code null} if they can.
+     */
+    static String mergeProblem(TypeMirror returnType, String sql) {
+        var type = returnType.toString();
+        if (type.equals("void")) {
+            return null;
+        }
+        if (!SqlText.isQuery(sql)) {
+            return type.equals("int") || type.equals("long") ? null : "which are " + type;
+        }
+        if (SqlText.containsKeyword(sql, "ORDER", "LIMIT", "OFFSET", "FETCH", "TOP", "GROUP", "HAVING", "OVER")) {
+            return "as ORDER BY, LIMIT, OFFSET, GROUP BY, HAVING and window functions would apply to each part";
+        }
+        var aggregates = SqlText.aggregates(sql);
+        if (returnType.getKind().isPrimitive() || ColumnReader.isSupported(type)) {
+            if (aggregates.isEmpty()) {
+                // A part without the row has nothing to return but null
+                return returnType.getKind().isPrimitive()
+                        ? "as parts without the row have no " + type + " to return, where a boxed type would be null"
+                        : null;
+            }
+            if (aggregates.size() == 1 && scalarMerge(type, aggregates.get(0)) != null) {
+                return null;
+            }
+            return "as " + String.join(", ", aggregates).toLowerCase(Locale.ROOT)
+                    + " of a " + type + " cannot be combined";
+        }
+        if (!aggregates.isEmpty()) {
+            return "as aggregates would apply to each part";
+        }
+        if (MapSpec.isMap(returnType)) {
+            return null;
+        }
+        if (returnType.getKind() == TypeKind.ARRAY
+                || type.startsWith("com.inputforge.dbx.collection.")
+                || type.startsWith("com.inputforge.dbx.store.")
+                || ColumnsSpec.isColumnar(returnType)) {
+            return "which are " + type;
+        }
+        if (isList(returnType) && SqlText.containsKeyword(sql, "DISTINCT")) {
+            return "as DISTINCT would apply to each part";
+        }
+        return null;
+    }
+
+    /**
+     * Returns the {@code ScatterGather} method merging the results of several calls of the query,
+     * or {@code null} for methods returning nothing. The results must pass
+     * {@link #mergeProblem(TypeMirror, String)}.
+     */
+    static String merge(TypeMirror returnType, String sql) {
+        var type = returnType.toString();
+        if (type.equals("void")) {
+            return null;
+        }
+        if (!SqlText.isQuery(sql)) {
+            return type.equals("int") ? "sumInt" : "sumLong";
+        }
+        if (returnType.getKind().isPrimitive() || ColumnReader.isSupported(type)) {
+            var aggregates = SqlText.aggregates(sql);
+            if (!aggregates.isEmpty()) {
+                return scalarMerge(type, aggregates.get(0));
+            }
+            return type.equals("java.lang.Boolean") ? "anyTrue" : "firstNonNull";
+        }
+        if (MapSpec.isMap(returnType)) {
+            return MapSpec.merge(returnType);
+        }
+        if (isList(returnType)) {
+            return "concat";
+        }
+        if (returnType instanceof DeclaredType
+                && ((DeclaredType) returnType).asElement().toString().equals("java.util.Set")) {
+            return "union";
+        }
+        // Rows outside aggregates live on one shard or in one chunk
+        return "firstNonNull";
+    }
+
+    /**
+     * Returns the method combining the values of an aggregate, or {@code null} if they cannot be,
+     * like averages and distinct counts.
+     */
+    private static String scalarMerge(String type, String aggregate) {
+        switch (aggregate) {
+            case "MAX":
+                return "max";
+            case "MIN":
+                return "min";
+            case "BOOL_OR":
+                return type.equals("boolean") || type.equals("java.lang.Boolean") ? "anyTrue" : null;
+            case "BOOL_AND":
+            case "EVERY":
+                return type.equals("boolean") || type.equals("java.lang.Boolean") ? "allTrue" : null;
+            case "COUNT":
+            case "SUM":
+                break;
+            default:
+                return null;
+        }
+        switch (type) {
+            case "int":
+            case "java.lang.Integer":
+                return "sumInt";
+            case "long":
+            case "java.lang.Long":
+                return "sumLong";
+            case "double":
+            case "java.lang.Double":
+                return "sumDouble";
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isList(TypeMirror type) {
+        if (!(type instanceof DeclaredType)) {
+            return false;
+        }
+        var name = ((DeclaredType) type).asElement().toString();
+        return name.equals("java.util.List") || name.equals("java.util.Collection");
+    }
+
+    public boolean isScatter() {
+        return keyName == null;
+    }
+
+    public String getKeyName() {
+        return keyName;
+    }
+
+    public String getMerge() {
+        return merge;
+    }
+}
@@ -0,0 +1,395 @@
+package com.inputforge.dbx.codegen;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public class SqlText {
+    private static final Set<String> queryKeywords = Set.of(
+            "SELECT", "WITH", "VALUES", "TABLE", "SHOW", "EXPLAIN"
+    );
+    private static final Set<String> tableKeywords = Set.of(
+            "FROM", "JOIN", "INTO", "UPDATE"
+    );
+    private static final Set<String> clauseKeywords = Set.of(
+            "WHERE", "JOIN", "INNER", "LEFT", "RIGHT", "FULL", "CROSS", "NATURAL", "ON", "USING",
+            "GROUP", "ORDER", "HAVING", "LIMIT", "OFFSET", "FETCH", "FOR", "WINDOW", "UNION",
+            "EXCEPT", "INTERSECT", "SET", "VALUES", "SELECT", "RETURNING", "AS"
+    );
+
+    private static final Set<String> aggregateFunctions = Set.of(
+            "COUNT", "SUM", "AVG", "MIN", "MAX", "ARRAY_AGG", "STRING_AGG", "GROUP_CONCAT", "LISTAGG",
+            "JSON_AGG", "JSON_ARRAYAGG", "EVERY", "BOOL_AND", "BOOL_OR", "BIT_AND", "BIT_OR", "MEDIAN",
+            "STDDEV", "STDDEV_POP", "STDDEV_SAMP", "VARIANCE", "VAR_POP", "VAR_SAMP"
+    );
+
+    private final String sql;
+    private final List<String> parameterNames;
+
+    private SqlText(String sql, List<String> parameterNames) {
+        this.sql = sql;
+        this.parameterNames = parameterNames;
+    }
+
+    public static boolean isQuery(String sql) {
+        return queryKeywords.contains(firstKeyword(sql));
+    }
+
+    public static String firstKeyword(String sql) {
+        int i = skipInsignificant(sql, 0);
+        int start = i;
+        while (i < sql.length() && Character.isLetter(sql.charAt(i))) {
+            i++;
+        }
+        return sql.substring(start, i).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Replaces {@code :name} placeholders with {@code ?}, remembering the names in order. Quoted
+     * text and {@code ::} casts are left alone.
+     */
+    public static SqlText withNamedParameters(String sql) {
+        var result = new StringBuilder(sql.length());
+        var names = new ArrayList<String>();
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                int end = sql.indexOf(c, i + 1);
+                end = end < 0 ? sql.length() : end + 1;
+                result.append(sql, i, end);
+                i = end;
+            } else if (c == ':' && i + 1 < sql.length() && sql.charAt(i + 1) == ':') {
+                result.append("::");
+                i += 2;
+            } else if (c == ':' && i + 1 < sql.length() && Character.isJavaIdentifierStart(sql.charAt(i + 1))) {
+                int end = i + 1;
+                while (end < sql.length() && Character.isJavaIdentifierPart(sql.charAt(end))) {
+                    end++;
+                }
+                names.add(sql.substring(i + 1, end));
+                result.append('?');
+                i = end;
+            } else {
+                result.append(c);
+                i++;
+            }
+        }
+        return new SqlText(result.toString(), names);
+    }
+
+    /**
+     * Returns the lower-cased, unqualified names of the tables following FROM, JOIN, INTO and
+     * UPDATE, including every table of a comma-separated FROM list.
+     */
+    public static Set<String> tables(String sql) {
+        var tokens = tokens(sql);
+        var tables = new LinkedHashSet<String>();
+        for (int i = 0; i < tokens.size(); i++) {
+            var keyword = tokens.get(i).toUpperCase(Locale.ROOT);
+            var truncate = keyword.equals("TABLE") && i > 0
+                    && tokens.get(i - 1).equalsIgnoreCase("TRUNCATE");
+            if (!tableKeywords.contains(keyword) && !truncate) {
+                continue;
+            }
+            int j = i + 1;
+            while (j < tokens.size() && isIdentifier(tokens.get(j))) {
+                tables.add(tableName(tokens.get(j++)));
+                if (!keyword.equals("FROM")) {
+                    break;
+                }
+                // Skip an alias, then continue with the next table of the list
+                if (j < tokens.size() && tokens.get(j).equalsIgnoreCase("AS")) {
+                    j += 2;
+                } else if (j < tokens.size() && isIdentifier(tokens.get(j))
+                        && !clauseKeywords.contains(tokens.get(j).toUpperCase(Locale.ROOT))) {
+                    j++;
+                }
+                if (j >= tokens.size() || !tokens.get(j).equals(",")) {
+                    break;
+                }
+                j++;
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Returns the positions of the {@code ?} placeholders outside quoted text.
+     */
+    public static List<Integer> placeholders(String sql) {
+        var positions = new ArrayList<Integer>();
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                int end = sql.indexOf(c, i + 1);
+                i = end < 0 ? sql.length() : end;
+            } else if (c == '?') {
+                positions.add(i);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Returns the position of the first FROM keyword outside parentheses and quoted text, or
+     * {@code -1}.
+     */
+    public static int topLevelFrom(String sql) {
+        int depth = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                int end = sql.indexOf(c, i + 1);
+                i = end < 0 ? sql.length() : end;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && sql.regionMatches(true, i, "FROM", 0, 4)
+                    && (i == 0 || !isNamePart(sql.charAt(i - 1)))
+                    && (i + 4 == sql.length() || !isNamePart(sql.charAt(i + 4)))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether any of the keywords appears in the query outside quoted text and comments.
+     */
+    public static boolean containsKeyword(String sql, String... keywords) {
+        for (var token : tokens(sql)) {
+            for (var keyword : keywords) {
+                if (token.equalsIgnoreCase(keyword)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the upper-cased names of the aggregate functions the query calls, in order, followed
+     * by {@code " DISTINCT"} for calls over distinct values.
+     */
+    public static List<String> aggregates(String sql) {
+        var tokens = tokens(sql);
+        var aggregates = new ArrayList<String>();
+        for (int i = 0; i + 1 < tokens.size(); i++) {
+            var name = tokens.get(i).toUpperCase(Locale.ROOT);
+            if (aggregateFunctions.contains(name) && tokens.get(i + 1).equals("(")) {
+                aggregates.add(i + 2 < tokens.size() && tokens.get(i + 2).equalsIgnoreCase("DISTINCT")
+                        ? name + " DISTINCT" : name);
+            }
+        }
+        return aggregates;
+    }
+
+    /**
+     * Replaces a top-level {@code SELECT *} or {@code SELECT alias.*} with the given columns,
+     * qualified by the alias. An unqualified {@code *} is only replaced when the query reads a
+     * single table without joins. Queries combined by a top-level {@code UNION}, {@code EXCEPT}
+     * or {@code INTERSECT}, whose branches must select matching columns, and any other query are
+     * returned unchanged.
+     */
+    public static String withSelectedColumns(String sql, List<String> columns) {
+        int i = skipWhitespaceAndComments(sql, 0);
+        if (!sql.regionMatches(true, i, "SELECT", 0, 6) || hasTopLevelSetOperation(sql)) {
+            return sql;
+        }
+        int start = skipWhitespaceAndComments(sql, i + 6);
+        int end = start;
+        while (end < sql.length() && isNamePart(sql.charAt(end))) {
+            end++;
+        }
+        var qualifier = "";
+        if (end > start) {
+            if (end + 1 >= sql.length() || sql.charAt(end) != '.') {
+                return sql;
+            }
+            qualifier = sql.substring(start, ++end);
+        }
+        if (end >= sql.length() || sql.charAt(end) != '*'
+                || skipWhitespaceAndComments(sql, end + 1) != topLevelFrom(sql)) {
+            return sql;
+        }
+        if (qualifier.isEmpty() && (tables(sql).size() != 1
+                || tokens(sql).stream().anyMatch(token -> token.equalsIgnoreCase("JOIN")))) {
+            return sql;
+        }
+
+        var selected = new StringBuilder();
+        for (var column : columns) {
+            if (selected.length() > 0) {
+                selected.append(", ");
+            }
+            selected.append(qualifier).append(column);
+        }
+        return sql.substring(0, start) + selected + sql.substring(end + 1);
+    }
+
+    private static boolean hasTopLevelSetOperation(String sql) {
+        int depth = 0;
+        for (var token : tokens(sql)) {
+            if (token.equals("(")) {
+                depth++;
+            } else if (token.equals(")")) {
+                depth--;
+            } else if (depth == 0 && (token.equalsIgnoreCase("UNION") || token.equalsIgnoreCase("EXCEPT")
+                    || token.equalsIgnoreCase("INTERSECT") || token.equalsIgnoreCase("MINUS"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the labels of the top-level select list, with {@code null} for expressions
+     * selected without an alias, or {@code null} when the query has no plain select list or
+     * selects {@code *}.
+     */
+    public static List<String> selectedLabels(String sql) {
+        int i = skipWhitespaceAndComments(sql, 0);
+        int from = topLevelFrom(sql);
+        if (!sql.regionMatches(true, i, "SELECT", 0, 6) || from < 0) {
+            return null;
+        }
+
+        var items = new ArrayList<String>();
+        int depth = 0;
+        int start = i + 6;
+        for (int j = start; j < from; j++) {
+            char c = sql.charAt(j);
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = sql.indexOf(c, j + 1);
+                j = end < 0 ? from : end;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                items.add(sql.substring(start, j));
+                start = j + 1;
+            }
+        }
+        items.add(sql.substring(start, from));
+
+        var labels = new ArrayList<String>();
+        for (int j = 0; j < items.size(); j++) {
+            var words = tokens(items.get(j));
+            if (j == 0 && !words.isEmpty()
+                    && (words.get(0).equalsIgnoreCase("DISTINCT") || words.get(0).equalsIgnoreCase("ALL"))) {
+                words = words.subList(1, words.size());
+            }
+            if (words.isEmpty() || words.get(words.size() - 1).equals("*")) {
+                return null;
+            }
+            var last = words.get(words.size() - 1);
+            if (words.size() == 1 && isIdentifier(last)) {
+                labels.add(tableName(last));
+            } else if (words.size() >= 3 && words.get(words.size() - 2).equalsIgnoreCase("AS") && isIdentifier(last)) {
+                labels.add(tableName(last));
+            } else if (words.size() == 2 && isIdentifier(words.get(0)) && isIdentifier(last)
+                    && !clauseKeywords.contains(last.toUpperCase(Locale.ROOT))) {
+                labels.add(tableName(last));
+            } else {
+                labels.add(null);
+            }
+        }
+        return labels;
+    }
+
+    private static List<String> tokens(String sql) {
+        var tokens = new ArrayList<String>();
+        int i = 0;
+        while ((i = skipWhitespaceAndComments(sql, i)) < sql.length()) {
+            char c = sql.charAt(i);
+            int end;
+            if (c == '\'') {
+                end = sql.indexOf('\'', i + 1);
+                i = end < 0 ? sql.length() : end + 1;
+                continue;
+            } else if (c == '"' || c == '`') {
+                end = sql.indexOf(c, i + 1);
+                end = end < 0 ? sql.length() : end + 1;
+                while (end < sql.length() && sql.charAt(end) == '.') {
+                    end++;
+                    while (end < sql.length() && isNamePart(sql.charAt(end))) {
+                        end++;
+                    }
+                }
+            } else if (isNamePart(c)) {
+                end = i;
+                while (end < sql.length() && (isNamePart(sql.charAt(end)) || sql.charAt(end) == '.'
+                        || sql.charAt(end) == '"' || sql.charAt(end) == '`')) {
+                    end++;
+                }
+            } else {
+                end = i + 1;
+            }
+            tokens.add(sql.substring(i, end));
+            i = end;
+        }
+        return tokens;
+    }
+
+    private static int skipWhitespaceAndComments(String sql, int i) {
+        while (i < sql.length()) {
+            if (Character.isWhitespace(sql.charAt(i))) {
+                i++;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? sql.length() : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? sql.length() : end + 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isNamePart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static boolean isIdentifier(String token) {
+        var c = token.charAt(0);
+        return Character.isLetter(c) || c == '_' || c == '"' || c == '`';
+    }
+
+    static String tableName(String name) {
+        var unquoted = name.replace("\"", "").replace("`", "");
+        return unquoted.substring(unquoted.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static int skipInsignificant(String sql, int i) {
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '(') {
+                i++;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? sql.length() : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? sql.length() : end + 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+}
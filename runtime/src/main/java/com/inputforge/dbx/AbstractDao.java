@@ -1,11 +1,49 @@
 package com.inputforge.dbx;
 
+import com.inputforge.dbx.metrics.DaoMetrics;
+
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Executor;
 
-public class AbstractDao {
-    protected final Connection connection;
+public class AbstractDao implements AutoCloseable {
+    protected final ConnectionSource connections;
+    protected final DaoOptions options;
+    protected final Executor executor;
+    protected final DaoMetrics metrics;
 
     public AbstractDao(Connection connection) {
-        this.connection = connection;
+        this(ConnectionSource.of(connection, DaoOptions.defaults()), DaoOptions.defaults());
+    }
+
+    public AbstractDao(ConnectionSource connections, DaoOptions options, String... queries) {
+        this.connections = connections;
+        this.options = options;
+        this.executor = connections.executor(options.executor());
+        this.metrics = options.metrics();
+
+        if (options.prepareEagerly()) {
+            try {
+                for (var shard : connections.shards()) {
+                    var statements = shard.acquire();
+                    try {
+                        statements.prepareAll(queries);
+                    } finally {
+                        shard.release(statements);
+                    }
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            connections.daoClosed();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
     }
 }
@@ -0,0 +1,114 @@
+package com.inputforge.dbx;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Merges concurrent single-key lookups into batches. The first key of a batch opens a window;
+ * the batch is loaded when the window closes or once it holds the maximum number of keys,
+ * whichever comes first, and every caller's future is completed from the combined result.
+ */
+public final class Coalescer<K, V> {
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        var thread = new Thread(task, "dbx-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int maxBatch;
+    private final long windowNanos;
+    private final Function<List<K>, Map<K, V>> loader;
+    private final Executor executor;
+    private Map<K, CompletableFuture<V>> pending;
+
+    public Coalescer(int maxBatch, long windowNanos, Function<List<K>, Map<K, V>> loader, Executor executor) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.maxBatch = maxBatch;
+        this.windowNanos = windowNanos;
+        this.loader = loader;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<V> load(K key) {
+        Map<K, CompletableFuture<V>> full = null;
+        CompletableFuture<V> future;
+        synchronized (this) {
+            if (pending == null) {
+                var batch = new LinkedHashMap<K, CompletableFuture<V>>();
+                pending = batch;
+                scheduler.schedule(() -> flush(batch), windowNanos, TimeUnit.NANOSECONDS);
+            }
+            // Concurrent lookups of the same key share one future
+            future = pending.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                pending.put(key, future);
+                if (pending.size() >= maxBatch) {
+                    full = pending;
+                    pending = null;
+                }
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return future;
+    }
+
+    /**
+     * Loads the key as part of a batch and waits for the result, rethrowing the loader's failure
+     * unwrapped.
+     */
+    public V get(K key) {
+        try {
+            return load(key).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void flush(Map<K, CompletableFuture<V>> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                return;
+            }
+            pending = null;
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        try {
+            executor.execute(() -> run(batch));
+        } catch (RejectedExecutionException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private void run(Map<K, CompletableFuture<V>> batch) {
+        try {
+            var results = loader.apply(new ArrayList<>(batch.keySet()));
+            batch.forEach((key, future) -> future.complete(results.get(key)));
+        } catch (Throwable failure) {
+            batch.values().forEach(future -> future.completeExceptionally(failure));
+        }
+    }
+}
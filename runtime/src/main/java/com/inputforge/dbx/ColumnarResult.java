@@ -0,0 +1,10 @@
+package com.inputforge.dbx;
+
+/**
+ * Query result stored as one array per column, implemented by the classes generated for
+ * {@code @Columnar} types. Every array holds {@link #size()} values, row {@code i} at index
+ * {@code i}.
+ */
+public interface ColumnarResult {
+    int size();
+}
@@ -0,0 +1,53 @@
+package com.inputforge.dbx;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Gives one thread at a time the use of a connection shared by several sources, such as the DAOs
+ * created on the same {@link Connection}. The owning thread may lock it again for nested calls.
+ * Unlike a {@code ReentrantLock} it can be unlocked from another thread, as a streamed result is
+ * closed wherever its reader finishes.
+ */
+final class ConnectionLock {
+    // The lock does not refer to its connection, so entries go once no source holds it
+    private static final Map<Connection, ConnectionLock> locks = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private Thread owner;
+    private int holds;
+
+    private ConnectionLock() {
+    }
+
+    static ConnectionLock of(Connection connection) {
+        return locks.computeIfAbsent(connection, c -> new ConnectionLock());
+    }
+
+    synchronized void lock() throws SQLException {
+        var thread = Thread.currentThread();
+        while (owner != null && owner != thread) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for the connection", e);
+            }
+        }
+        owner = thread;
+        holds++;
+    }
+
+    synchronized boolean isHeldByCurrentThread() {
+        return owner == Thread.currentThread();
+    }
+
+    synchronized void unlock() {
+        if (holds > 0 && --holds == 0) {
+            owner = null;
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.inputforge.dbx;
+
+import com.inputforge.dbx.cache.QueryCache;
+import com.inputforge.dbx.limit.ConcurrencyLimiter;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Hands out connections, together with their statement caches, for the duration of a single DAO
+ * call. Within {@link #inTransaction(Supplier)} every call on the same thread gets the same
+ * connection.
+ */
+public abstract class ConnectionSource implements AutoCloseable {
+    private final ThreadLocal<StatementCache> transaction = new ThreadLocal<>();
+    private final ThreadLocal<Set<QueryCache<?, ?>>> invalidated = new ThreadLocal<>();
+    // DAOs handed out by DaoFactory.shared, which live as long as the source
+    private final Map<Class<?>, Object> sharedDaos = new ConcurrentHashMap<>();
+
+    public static ConnectionSource of(Connection connection, DaoOptions options) {
+        return new SingleConnectionSource(connection, options.statementCacheSize());
+    }
+
+    public static ConnectionSource of(DataSource dataSource) {
+        return new DataSourceConnectionSource(dataSource);
+    }
+
+    public final StatementCache acquire() throws SQLException {
+        return acquire(false);
+    }
+
+    /**
+     * Acquires the connection for one call. Inside a transaction every call uses the
+     * transaction's connection, so reads see its uncommitted writes.
+     */
+    public final StatementCache acquire(boolean readOnly) throws SQLException {
+        var bound = transaction.get();
+        if (bound != null) {
+            return bound;
+        }
+        return readOnly ? borrowForRead() : borrow();
+    }
+
+    public final void release(StatementCache statements) throws SQLException {
+        if (transaction.get() != statements) {
+            giveBack(statements);
+        }
+    }
+
+    /**
+     * Returns a result set that releases its connection when closed.
+     */
+    public ResultSet releaseOnClose(StatementCache statements, ResultSet resultSet) {
+        return releaseOnClose(statements, resultSet, ConcurrencyLimiter.unlimited(), 0);
+    }
+
+    /**
+     * Returns a result set that releases its connection, then the limiter's permit, when closed.
+     */
+    public ResultSet releaseOnClose(StatementCache statements, ResultSet resultSet, ConcurrencyLimiter limiter,
+                                    long limitGranted) {
+        var closed = new AtomicBoolean();
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    try {
+                        var result = method.invoke(resultSet, args);
+                        if (method.getName().equals("close") && method.getParameterCount() == 0
+                                && closed.compareAndSet(false, true)) {
+                            try {
+                                release(statements);
+                            } finally {
+                                limiter.release(limitGranted, null);
+                            }
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Returns the source holding the rows of the given shard key. Unsharded sources hold them all.
+     */
+    public ConnectionSource shard(Object key) {
+        return this;
+    }
+
+    /**
+     * Returns the sources a query without a shard key runs on, one per shard.
+     */
+    public List<ConnectionSource> shards() {
+        return List.of(this);
+    }
+
+    /**
+     * Returns the executor asynchronous DAO calls on this source should run on.
+     */
+    public Executor executor(Executor executor) {
+        return executor;
+    }
+
+    /**
+     * Clears the caches after a write. Inside a transaction they are cleared again when it ends,
+     * dropping results other threads cached before the write became visible to them.
+     */
+    public void invalidate(QueryCache<?, ?>... caches) {
+        for (var cache : caches) {
+            cache.clear();
+        }
+        if (transaction.get() != null) {
+            var pending = invalidated.get();
+            if (pending == null) {
+                pending = new HashSet<>();
+                invalidated.set(pending);
+            }
+            pending.addAll(Arrays.asList(caches));
+        }
+    }
+
+    /**
+     * Returns whether the calling thread is inside {@link #inTransaction(Supplier)}.
+     */
+    public boolean isInTransaction() {
+        return transaction.get() != null;
+    }
+
+    /**
+     * Returns whether one call may use several connections at once, which it may not inside a
+     * transaction or when there is only one connection.
+     */
+    public boolean supportsParallelCalls() {
+        return !isInTransaction();
+    }
+
+    public void inTransaction(Runnable work) {
+        inTransaction(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T inTransaction(Supplier<T> work) {
+        if (transaction.get() != null) {
+            return work.get();
+        }
+
+        try {
+            var statements = borrow();
+            transaction.set(statements);
+            try {
+                return runInTransaction(statements.connection(), work);
+            } finally {
+                transaction.remove();
+                clearInvalidated();
+                giveBack(statements);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void clearInvalidated() {
+        var pending = invalidated.get();
+        if (pending != null) {
+            invalidated.remove();
+            pending.forEach(QueryCache::clear);
+        }
+    }
+
+    private static <T> T runInTransaction(Connection connection, Supplier<T> work) throws SQLException {
+        var autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            var result = work.get();
+            connection.commit();
+            return result;
+        } catch (RuntimeException | Error e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    protected abstract StatementCache borrow() throws SQLException;
+
+    /**
+     * Borrows a connection for a call that only reads. Sources without replicas use the same
+     * connections as for writes.
+     */
+    protected StatementCache borrowForRead() throws SQLException {
+        return borrow();
+    }
+
+    protected abstract void giveBack(StatementCache statements) throws SQLException;
+
+    /**
+     * Closes every source, throwing the first failure once all of them have been closed.
+     */
+    protected static void closeAll(Iterable<? extends ConnectionSource> sources) throws SQLException {
+        SQLException failure = null;
+        for (var source : sources) {
+            try {
+                source.close();
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T shared(Class<T> daoClass, Supplier<T> create) {
+        var dao = (T) sharedDaos.get(daoClass);
+        if (dao != null) {
+            return dao;
+        }
+        // Created outside the map, as a DAO may prepare its statements. A DAO losing the race
+        // is dropped unclosed, since closing it would close the statements the winner shares.
+        var created = create.get();
+        var raced = (T) sharedDaos.putIfAbsent(daoClass, created);
+        return raced != null ? raced : created;
+    }
+
+    void daoClosed() throws SQLException {
+    }
+
+    @Override
+    public void close() throws SQLException {
+    }
+}
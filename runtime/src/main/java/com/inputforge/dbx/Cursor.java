@@ -0,0 +1,21 @@
+package com.inputforge.dbx;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily mapped query results. The underlying statement stays open until the cursor is exhausted
+ * or closed, so callers that may stop early must close it.
+ */
+public interface Cursor<T> extends Iterator<T>, AutoCloseable {
+    @Override
+    void close();
+
+    default Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+                .onClose(this::close);
+    }
+}
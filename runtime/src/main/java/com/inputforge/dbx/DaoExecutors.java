@@ -0,0 +1,41 @@
+package com.inputforge.dbx;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for asynchronous DAO methods. On Java 21 and later the multi-release jar replaces this
+ * class with one that runs every call on its own virtual thread.
+ */
+public final class DaoExecutors {
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private DaoExecutors() {
+    }
+
+    public static Executor defaultExecutor() {
+        return Default.executor;
+    }
+
+    /**
+     * Returns a new executor that starts a thread for every task: platform threads from a cached
+     * pool here, virtual threads on Java 21.
+     */
+    public static ExecutorService newThreadPerTaskExecutor() {
+        return Executors.newCachedThreadPool(task -> {
+            var thread = new Thread(task, "dbx-async-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static boolean usesVirtualThreads() {
+        return false;
+    }
+
+    private static final class Default {
+        private static final ExecutorService executor = newThreadPerTaskExecutor();
+    }
+}
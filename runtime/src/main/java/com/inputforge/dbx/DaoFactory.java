@@ -1,21 +1,155 @@
 package com.inputforge.dbx;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
-import java.util.Optional;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
 
 public class DaoFactory {
+    // Connections are checked for being closed once per this many connections shared on
+    private static final int SWEEP_INTERVAL = 64;
+
+    // Sources of the connections DAOs are shared on, held until released or found closed
+    private static final Map<Connection, ConnectionSource> sharedSources = new ConcurrentHashMap<>();
+    private static final AtomicInteger sharedConnections = new AtomicInteger();
+
     public static <T> T create(Class<T> daoClass, Connection connection) {
-        var loader = ServiceLoader.load(DaoRegistry.class);
+        return create(daoClass, connection, DaoOptions.defaults());
+    }
+
+    public static <T> T create(Class<T> daoClass, Connection connection, DaoOptions options) {
+        return create(daoClass, ConnectionSource.of(connection, options), options);
+    }
+
+    /**
+     * Creates a thread-safe DAO that borrows a connection from the data source for each call, or
+     * for each {@link ConnectionSource#inTransaction transaction}.
+     */
+    public static <T> T create(Class<T> daoClass, DataSource dataSource) {
+        return create(daoClass, dataSource, DaoOptions.defaults());
+    }
+
+    public static <T> T create(Class<T> daoClass, DataSource dataSource, DaoOptions options) {
+        return create(daoClass, ConnectionSource.of(dataSource), options);
+    }
+
+    public static <T> T create(Class<T> daoClass, DataSource primary, List<? extends DataSource> replicas) {
+        return create(daoClass, primary, replicas, DaoOptions.defaults());
+    }
+
+    /**
+     * Creates a DAO whose read-only queries run on the replicas, balanced by
+     * {@link ReplicaRoutingSource.Balancing#LEAST_OUTSTANDING}, and whose writes and transactions
+     * run on the primary.
+     */
+    public static <T> T create(Class<T> daoClass, DataSource primary, List<? extends DataSource> replicas,
+                               DaoOptions options) {
+        var replicaSources = replicas.stream().map(ConnectionSource::of).collect(Collectors.toList());
+        return create(daoClass, ReplicaRoutingSource.create(ConnectionSource.of(primary), replicaSources), options);
+    }
+
+    public static <T> T create(Class<T> daoClass, ConnectionSource connections) {
+        return create(daoClass, connections, DaoOptions.defaults());
+    }
+
+    public static <T> T create(Class<T> daoClass, ConnectionSource connections, DaoOptions options) {
+        return constructor(daoClass).apply(connections, options);
+    }
+
+    public static <T> T shared(Class<T> daoClass, Connection connection) {
+        return shared(daoClass, connection, DaoOptions.defaults());
+    }
+
+    /**
+     * Returns the DAO previously created for this connection, creating it with the given options
+     * on first use. DAOs shared on one connection share its prepared statements, with the cache
+     * size of the first, until the connection is {@link #release released}; those of connections
+     * found closed are dropped from time to time as DAOs are shared on new connections. Release a
+     * pooled connection before returning it to the pool, or share DAOs on the pool's
+     * {@link ConnectionSource} instead.
+     */
+    public static <T> T shared(Class<T> daoClass, Connection connection, DaoOptions options) {
+        var connections = sharedSources.get(connection);
+        if (connections == null) {
+            connections = sharedSources.computeIfAbsent(connection, c -> ConnectionSource.of(c, options));
+            if (sharedConnections.incrementAndGet() % SWEEP_INTERVAL == 0) {
+                removeClosed();
+            }
+        }
+        return shared(daoClass, connections, options);
+    }
+
+    public static <T> T shared(Class<T> daoClass, ConnectionSource connections) {
+        return shared(daoClass, connections, DaoOptions.defaults());
+    }
+
+    /**
+     * Returns the DAO previously created on this source, creating it with the given options on
+     * first use. The DAO lives as long as the source.
+     */
+    public static <T> T shared(Class<T> daoClass, ConnectionSource connections, DaoOptions options) {
+        return connections.shared(daoClass, () -> create(daoClass, connections, options));
+    }
+
+    /**
+     * Drops the DAOs shared on the connection and closes their prepared statements.
+     */
+    public static void release(Connection connection) {
+        var connections = sharedSources.remove(connection);
+        if (connections != null) {
+            try {
+                connections.close();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
 
-        for (DaoRegistry registry : loader) {
-            Optional<? extends T> dao = registry.get(daoClass, connection);
-            if (dao.isPresent()) {
-                return dao.get();
+    private static void removeClosed() {
+        for (var entry : sharedSources.entrySet()) {
+            if (isClosed(entry.getKey()) && sharedSources.remove(entry.getKey(), entry.getValue())) {
+                try {
+                    entry.getValue().close();
+                } catch (SQLException e) {
+                    // The connection is gone, and its statements with it
+                }
             }
         }
+    }
+
+    private static boolean isClosed(Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
 
-        throw new IllegalArgumentException("Dao not found: " + daoClass.getName());
+    @SuppressWarnings("unchecked")
+    private static <T> BiFunction<ConnectionSource, DaoOptions, ? extends T> constructor(Class<T> daoClass) {
+        var constructor = Registries.constructors.get(daoClass);
+        if (constructor == null) {
+            throw new IllegalArgumentException("Dao not found: " + daoClass.getName());
+        }
+        return (BiFunction<ConnectionSource, DaoOptions, ? extends T>) constructor;
     }
 
+    private static final class Registries {
+        private static final Map<Class<?>, BiFunction<ConnectionSource, DaoOptions, ?>> constructors = load();
+
+        private static Map<Class<?>, BiFunction<ConnectionSource, DaoOptions, ?>> load() {
+            var constructors = new HashMap<Class<?>, BiFunction<ConnectionSource, DaoOptions, ?>>();
+            for (DaoRegistry registry : ServiceLoader.load(DaoRegistry.class)) {
+                registry.daos().forEach(constructors::putIfAbsent);
+            }
+            return Map.copyOf(constructors);
+        }
+    }
 }
@@ -0,0 +1,233 @@
+package com.inputforge.dbx;
+
+import com.inputforge.dbx.limit.ConcurrencyLimiter;
+import com.inputforge.dbx.metrics.DaoMetrics;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+public final class DaoOptions {
+    private static final DaoOptions DEFAULTS = new DaoOptions();
+
+    private int statementCacheSize = 32;
+    private boolean prepareEagerly = false;
+    private int streamingFetchSize = 1000;
+    private int batchSize = 1000;
+    private int inListChunkSize = 1000;
+    private boolean parallelInListChunks = false;
+    private long rowListMemory = 64L << 20;
+    private Path spillDirectory = null;
+    private Executor executor = null;
+    private DaoMetrics metrics = DaoMetrics.disabled();
+    private ConcurrencyLimiter limiter = ConcurrencyLimiter.unlimited();
+    private Map<String, ConcurrencyLimiter> methodLimiters = Map.of();
+
+    private DaoOptions() {
+    }
+
+    private DaoOptions(DaoOptions other) {
+        this.statementCacheSize = other.statementCacheSize;
+        this.prepareEagerly = other.prepareEagerly;
+        this.streamingFetchSize = other.streamingFetchSize;
+        this.batchSize = other.batchSize;
+        this.inListChunkSize = other.inListChunkSize;
+        this.parallelInListChunks = other.parallelInListChunks;
+        this.rowListMemory = other.rowListMemory;
+        this.spillDirectory = other.spillDirectory;
+        this.executor = other.executor;
+        this.metrics = other.metrics;
+        this.limiter = other.limiter;
+        this.methodLimiters = other.methodLimiters;
+    }
+
+    public static DaoOptions defaults() {
+        return DEFAULTS;
+    }
+
+    public int statementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Maximum number of prepared statements each connection keeps open. {@code 0} disables
+     * caching, so every call prepares and closes its own statement.
+     */
+    public DaoOptions statementCacheSize(int statementCacheSize) {
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Statement cache size must not be negative");
+        }
+        var options = new DaoOptions(this);
+        options.statementCacheSize = statementCacheSize;
+        return options;
+    }
+
+    public boolean prepareEagerly() {
+        return prepareEagerly;
+    }
+
+    /**
+     * Prepares all of a DAO's queries when it is constructed instead of on first use.
+     */
+    public DaoOptions prepareEagerly(boolean prepareEagerly) {
+        var options = new DaoOptions(this);
+        options.prepareEagerly = prepareEagerly;
+        return options;
+    }
+
+    public int streamingFetchSize() {
+        return streamingFetchSize;
+    }
+
+    /**
+     * Fetch size hint applied to queries that return a {@code Stream}, {@code Iterator},
+     * {@link Cursor} or {@code ResultSet}, unless the query sets its own. Some drivers only honour
+     * it outside auto-commit mode.
+     */
+    public DaoOptions streamingFetchSize(int streamingFetchSize) {
+        if (streamingFetchSize < 0) {
+            throw new IllegalArgumentException("Fetch size must not be negative");
+        }
+        var options = new DaoOptions(this);
+        options.streamingFetchSize = streamingFetchSize;
+        return options;
+    }
+
+    public int batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Rows sent per executeBatch call by {@code @Batch} methods that don't set their own size.
+     */
+    public DaoOptions batchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        var options = new DaoOptions(this);
+        options.batchSize = batchSize;
+        return options;
+    }
+
+    public int inListChunkSize() {
+        return inListChunkSize;
+    }
+
+    /**
+     * Largest number of values a collection parameter binds in one statement. Longer collections
+     * run as several queries whose results are merged, except {@code NOT IN} lists, queries
+     * whose results cannot be merged, such as ordered or limited ones, and writes, which bind the
+     * whole collection. Writes stay one statement so they apply all at once or not at all. Keep it under the driver's or database's limit, such as Oracle's 1000
+     * expressions per list.
+     */
+    public DaoOptions inListChunkSize(int inListChunkSize) {
+        if (inListChunkSize < 1) {
+            throw new IllegalArgumentException("IN-list chunk size must be positive");
+        }
+        var options = new DaoOptions(this);
+        options.inListChunkSize = inListChunkSize;
+        return options;
+    }
+
+    public boolean parallelInListChunks() {
+        return parallelInListChunks;
+    }
+
+    /**
+     * Runs the chunks of a long collection parameter concurrently on separate connections, using
+     * the DAO's executor. Chunks inside a transaction or on a single connection still run in turn.
+     */
+    public DaoOptions parallelInListChunks(boolean parallelInListChunks) {
+        var options = new DaoOptions(this);
+        options.parallelInListChunks = parallelInListChunks;
+        return options;
+    }
+
+    public long rowListMemory() {
+        return rowListMemory;
+    }
+
+    /**
+     * Bytes of direct memory a {@code RowList} result fills before spilling further rows to a
+     * memory-mapped temporary file.
+     */
+    public DaoOptions rowListMemory(long rowListMemory) {
+        if (rowListMemory < 0) {
+            throw new IllegalArgumentException("Row list memory must not be negative");
+        }
+        var options = new DaoOptions(this);
+        options.rowListMemory = rowListMemory;
+        return options;
+    }
+
+    public Path spillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Directory of the files {@code RowList} results spill to; {@code null} uses the system's
+     * temporary directory.
+     */
+    public DaoOptions spillDirectory(Path spillDirectory) {
+        var options = new DaoOptions(this);
+        options.spillDirectory = spillDirectory;
+        return options;
+    }
+
+    public Executor executor() {
+        return executor != null ? executor : DaoExecutors.defaultExecutor();
+    }
+
+    /**
+     * Executor that runs methods returning {@code CompletableFuture}.
+     */
+    public DaoOptions executor(Executor executor) {
+        var options = new DaoOptions(this);
+        options.executor = executor;
+        return options;
+    }
+
+    public DaoMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Listener that receives timings of every DAO call, for example {@link DaoMetrics#defaults()}.
+     * Metrics are disabled by default.
+     */
+    public DaoOptions metrics(DaoMetrics metrics) {
+        var options = new DaoOptions(this);
+        options.metrics = metrics;
+        return options;
+    }
+
+    /**
+     * Returns the limiter of the named method: its own, or else the one shared by the DAO.
+     */
+    public ConcurrencyLimiter limiter(String method) {
+        return methodLimiters.getOrDefault(method, limiter);
+    }
+
+    /**
+     * Limits concurrent calls of the DAOs created with these options, shared by all their methods
+     * without a limiter of their own. DAOs are unlimited by default.
+     */
+    public DaoOptions limiter(ConcurrencyLimiter limiter) {
+        var options = new DaoOptions(this);
+        options.limiter = limiter;
+        return options;
+    }
+
+    /**
+     * Gives a method, with all its overloads, a limiter of its own, so that it neither waits for
+     * nor holds up the DAO's other methods.
+     */
+    public DaoOptions limiter(String method, ConcurrencyLimiter limiter) {
+        var methodLimiters = new HashMap<>(this.methodLimiters);
+        methodLimiters.put(method, limiter);
+        var options = new DaoOptions(this);
+        options.methodLimiters = Map.copyOf(methodLimiters);
+        return options;
+    }
+}
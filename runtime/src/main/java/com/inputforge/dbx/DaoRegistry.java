@@ -1,8 +1,8 @@
 package com.inputforge.dbx;
 
-import java.sql.Connection;
-import java.util.Optional;
+import java.util.Map;
+import java.util.function.BiFunction;
 
 public interface DaoRegistry {
-    <T> Optional<? extends T> get(Class<T> daoClass, Connection connection);
+    Map<Class<?>, BiFunction<ConnectionSource, DaoOptions, ?>> daos();
 }
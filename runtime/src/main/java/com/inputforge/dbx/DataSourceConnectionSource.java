@@ -0,0 +1,24 @@
+package com.inputforge.dbx;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+final class DataSourceConnectionSource extends ConnectionSource {
+    private final DataSource dataSource;
+
+    DataSourceConnectionSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    protected StatementCache borrow() throws SQLException {
+        // Connections from a foreign pool change identity on every borrow, so statement caching is
+        // left to the pool or driver.
+        return new StatementCache(dataSource.getConnection(), 0);
+    }
+
+    @Override
+    protected void giveBack(StatementCache statements) throws SQLException {
+        statements.connection().close();
+    }
+}
@@ -0,0 +1,254 @@
+package com.inputforge.dbx;
+
+import com.inputforge.dbx.metrics.DaoMetrics;
+import com.inputforge.dbx.metrics.LatencyHistogram;
+import com.inputforge.dbx.metrics.QueryId;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Runs a read on the calling thread and, if it has not finished after the hedge delay, a second
+ * attempt on another connection using the executor. The caller gets whichever result arrives
+ * first and the other attempt's statement is cancelled, which lets a stalled first attempt return
+ * as soon as the driver gives up its statement. The delay is either fixed or a percentile of the
+ * latencies seen over the previous window of calls, but at least the minimum delay; until the
+ * first window is complete calls are not hedged. Each call earns a share of a hedge, and a hedge is
+ * only sent while a whole one has been earned, so hedges stay within that share of calls even when
+ * every call is slow.
+ */
+public final class Hedger<V> {
+    private static final int WINDOW = 1000;
+    // Budget is counted in thousandths of a hedge, and saved up for at most this many hedges
+    private static final long HEDGE = 1000;
+    private static final long MAX_BUDGET = 10 * HEDGE;
+
+    private static final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, task -> {
+        var thread = new Thread(task, "dbx-hedger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    private final QueryId query;
+    private final DaoMetrics metrics;
+    private final long delayNanos;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long budgetPerCall;
+    private final AtomicLong budget = new AtomicLong();
+    private final AtomicLong samples = new AtomicLong();
+    private volatile LatencyHistogram current = new LatencyHistogram();
+    private volatile LatencyHistogram previous;
+
+    /**
+     * @param delayNanos    fixed hedge delay, or {@code 0} to use the given latency percentile
+     * @param minDelayNanos shortest delay taken from the percentile
+     * @param maxHedgeRatio largest share of calls that may send a hedge
+     */
+    public Hedger(QueryId query, DaoMetrics metrics, long delayNanos, double percentile, long minDelayNanos,
+                  double maxHedgeRatio) {
+        this.query = query;
+        this.metrics = metrics;
+        this.delayNanos = delayNanos;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelayNanos;
+        this.budgetPerCall = Math.max(1, Math.round(maxHedgeRatio * HEDGE));
+    }
+
+    public V execute(ConnectionSource connections, Executor executor, Function<Attempt, V> attempt) {
+        earnBudget();
+        var delay = delayNanos();
+        if (delay < 0 || !connections.supportsParallelCalls()) {
+            var start = System.nanoTime();
+            var result = attempt.apply(new Attempt());
+            record(System.nanoTime() - start);
+            return result;
+        }
+
+        var start = System.nanoTime();
+        var call = new Call(attempt, executor);
+        var hedge = scheduler.schedule(call::hedge, delay, TimeUnit.NANOSECONDS);
+        try {
+            call.run(call.first);
+            var result = call.result.join();
+            record(System.nanoTime() - start);
+            return result;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        } finally {
+            hedge.cancel(false);
+        }
+    }
+
+    private long delayNanos() {
+        if (delayNanos > 0) {
+            return delayNanos;
+        }
+        var window = previous;
+        return window != null ? Math.max(minDelayNanos, window.percentile(percentile)) : -1;
+    }
+
+    private void earnBudget() {
+        long current;
+        do {
+            current = budget.get();
+            if (current >= MAX_BUDGET) {
+                return;
+            }
+        } while (!budget.compareAndSet(current, Math.min(MAX_BUDGET, current + budgetPerCall)));
+    }
+
+    private boolean spendBudget() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < HEDGE) {
+                return false;
+            }
+        } while (!budget.compareAndSet(current, current - HEDGE));
+        return true;
+    }
+
+    private void record(long nanos) {
+        if (delayNanos > 0) {
+            return;
+        }
+        current.record(nanos);
+        if (samples.incrementAndGet() % WINDOW == 0) {
+            previous = current;
+            current = new LatencyHistogram();
+        }
+    }
+
+    private void recordHedge(boolean won) {
+        if (metrics.isEnabled()) {
+            metrics.recordHedge(query, won);
+        }
+    }
+
+    private final class Call {
+        private final Function<Attempt, V> attempt;
+        private final Executor executor;
+        private final Attempt first = new Attempt();
+        private final Attempt second = new Attempt();
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private int running = 1;
+        private boolean hedgeable = true;
+        private volatile boolean hedged;
+        private Throwable failure;
+
+        private Call(Function<Attempt, V> attempt, Executor executor) {
+            this.attempt = attempt;
+            this.executor = executor;
+        }
+
+        private void hedge() {
+            synchronized (this) {
+                // Failures are not retried: the hedge only races a slow first attempt
+                if (!hedgeable || result.isDone() || !spendBudget()) {
+                    return;
+                }
+                hedgeable = false;
+                hedged = true;
+                running++;
+            }
+            try {
+                executor.execute(() -> run(second));
+            } catch (RejectedExecutionException e) {
+                failed(e);
+            }
+        }
+
+        private void run(Attempt current) {
+            V value;
+            try {
+                value = attempt.apply(current);
+            } catch (RuntimeException | Error e) {
+                // A cancelled attempt lost the race and the call already has its result
+                if (!current.isCancelled()) {
+                    failed(e);
+                }
+                return;
+            }
+            if (result.complete(value)) {
+                (current == first ? second : first).cancel();
+                if (hedged) {
+                    recordHedge(current == second);
+                }
+            }
+        }
+
+        private void failed(Throwable e) {
+            synchronized (this) {
+                hedgeable = false;
+                if (failure == null) {
+                    failure = e;
+                } else if (failure != e) {
+                    failure.addSuppressed(e);
+                }
+                if (--running > 0) {
+                    return;
+                }
+            }
+            result.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * One execution of a hedged query. Generated code registers the statement while it runs, so
+     * that the losing attempt can be cancelled without touching a statement already handed back
+     * to the cache.
+     */
+    public static final class Attempt {
+        private Statement statement;
+        private boolean cancelled;
+
+        public synchronized void started(Statement statement) throws SQLException {
+            if (cancelled) {
+                throw new SQLException("Hedged attempt cancelled");
+            }
+            this.statement = statement;
+        }
+
+        public synchronized void finished() {
+            statement = null;
+        }
+
+        /**
+         * Returns whether the other attempt won, so that this one's failure only reflects its
+         * cancellation.
+         */
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (statement != null) {
+                try {
+                    statement.cancel();
+                } catch (SQLException ignored) {
+                    // The other attempt's result is already being returned
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.inputforge.dbx;
+
+import com.inputforge.dbx.shard.ScatterGather;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * SQL with an {@code IN (...)} list of a variable number of placeholders. Lists are padded to the
+ * next power of two, repeating the last value, so the number of distinct statements a driver
+ * and the statement cache see stays logarithmic in the list size.
+ */
+public final class InList {
+    private final String prefix;
+    private final String suffix;
+    private final AtomicReferenceArray<String> sql = new AtomicReferenceArray<>(32);
+    private volatile FullList full;
+
+    /**
+     * @param prefix SQL up to and including the opening parenthesis of the list
+     * @param suffix SQL from the closing parenthesis on
+     */
+    public InList(String prefix, String suffix) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    public static int paddedSize(int size) {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * Pads like {@link #paddedSize(int)}, but to at most {@code maxSize}, the largest list the
+     * driver accepts.
+     */
+    public static int paddedSize(int size, int maxSize) {
+        return Math.min(paddedSize(size), maxSize);
+    }
+
+    /**
+     * Returns the SQL for a list of {@code paddedSize(size)} placeholders.
+     */
+    public String sql(int size) {
+        var padded = paddedSize(size);
+        var slot = Integer.numberOfTrailingZeros(padded);
+        var result = sql.get(slot);
+        if (result == null) {
+            result = build(padded);
+            sql.set(slot, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the SQL for a list of {@code paddedSize(size, maxSize)} placeholders.
+     */
+    public String sql(int size, int maxSize) {
+        var padded = paddedSize(size, maxSize);
+        if (Integer.bitCount(padded) == 1) {
+            return sql(padded);
+        }
+        var full = this.full;
+        if (full == null || full.size != padded) {
+            full = new FullList(padded, build(padded));
+            this.full = full;
+        }
+        return full.sql;
+    }
+
+    private String build(int placeholders) {
+        var builder = new StringBuilder(prefix.length() + suffix.length() + placeholders * 3);
+        builder.append(prefix);
+        for (int i = 0; i < placeholders; i++) {
+            builder.append(i == 0 ? "?" : ", ?");
+        }
+        return builder.append(suffix).toString();
+    }
+
+    /**
+     * Splits the values into lists of at most {@code chunkSize} and runs the query on each, in
+     * order or, when {@code parallel}, on the executor as well as the calling thread. Returns the
+     * result of every chunk.
+     */
+    public static <E, T> List<T> chunks(Collection<E> values, int chunkSize, boolean parallel, Executor executor,
+                                        Function<Collection<E>, T> query) {
+        var list = values instanceof List ? (List<E>) values : new ArrayList<>(values);
+        var chunks = new ArrayList<List<E>>((list.size() + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < list.size(); from += chunkSize) {
+            chunks.add(list.subList(from, Math.min(list.size(), from + chunkSize)));
+        }
+        return ScatterGather.all(chunks, parallel, executor, query);
+    }
+
+    /**
+     * Lists of the maximum size are the only ones not padded to a power of two.
+     */
+    private static final class FullList {
+        private final int size;
+        private final String sql;
+
+        private FullList(int size, String sql) {
+            this.size = size;
+            this.sql = sql;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.inputforge.dbx;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+public class NullableColumns {
+    public static Byte getByte(ResultSet resultSet, int column) throws SQLException {
+        var value = resultSet.getByte(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    public static Short getShort(ResultSet resultSet, int column) throws SQLException {
+        var value = resultSet.getShort(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    public static Integer getInt(ResultSet resultSet, int column) throws SQLException {
+        var value = resultSet.getInt(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    public static Long getLong(ResultSet resultSet, int column) throws SQLException {
+        var value = resultSet.getLong(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    public static Float getFloat(ResultSet resultSet, int column) throws SQLException {
+        var value = resultSet.getFloat(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    public static Double getDouble(ResultSet resultSet, int column) throws SQLException {
+        var value = resultSet.getDouble(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    public static Boolean getBoolean(ResultSet resultSet, int column) throws SQLException {
+        var value = resultSet.getBoolean(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    public static Instant getInstant(ResultSet resultSet, int column) throws SQLException {
+        Timestamp value = resultSet.getTimestamp(column);
+        return value == null ? null : value.toInstant();
+    }
+}
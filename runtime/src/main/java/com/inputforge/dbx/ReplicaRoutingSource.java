@@ -0,0 +1,137 @@
+package com.inputforge.dbx;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Sends read-only calls to replicas and everything else to the primary. Transactions always run
+ * on the primary, including the reads made inside them. Closing the source closes the primary and
+ * every replica.
+ */
+public final class ReplicaRoutingSource extends ConnectionSource {
+    public enum Balancing {
+        /**
+         * Replicas take turns.
+         */
+        ROUND_ROBIN,
+        /**
+         * The replica with the fewest calls in progress is used, so a slow replica receives less
+         * work.
+         */
+        LEAST_OUTSTANDING
+    }
+
+    private final ConnectionSource primary;
+    private final ConnectionSource[] replicas;
+    private final Balancing balancing;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicIntegerArray outstanding;
+    private final Map<StatementCache, Integer> leased = new ConcurrentHashMap<>();
+
+    private ReplicaRoutingSource(ConnectionSource primary, List<? extends ConnectionSource> replicas,
+                                 Balancing balancing) {
+        this.primary = primary;
+        this.replicas = replicas.toArray(new ConnectionSource[0]);
+        this.balancing = balancing;
+        this.outstanding = new AtomicIntegerArray(this.replicas.length);
+    }
+
+    public static ReplicaRoutingSource create(ConnectionSource primary, List<? extends ConnectionSource> replicas) {
+        return create(primary, replicas, Balancing.LEAST_OUTSTANDING);
+    }
+
+    /**
+     * Replicas must hand out a separate connection for every borrow, as pools and data sources do;
+     * a single shared connection cannot be told apart from the calls of other threads.
+     */
+    public static ReplicaRoutingSource create(ConnectionSource primary, List<? extends ConnectionSource> replicas,
+                                              Balancing balancing) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        for (var replica : replicas) {
+            if (replica instanceof SingleConnectionSource) {
+                throw new IllegalArgumentException("Replicas must not be single connections");
+            }
+        }
+        return new ReplicaRoutingSource(primary, replicas, balancing);
+    }
+
+    @Override
+    protected StatementCache borrow() throws SQLException {
+        return primary.borrow();
+    }
+
+    @Override
+    protected StatementCache borrowForRead() throws SQLException {
+        var replica = choose();
+        outstanding.incrementAndGet(replica);
+        try {
+            var statements = replicas[replica].borrow();
+            leased.put(statements, replica);
+            return statements;
+        } catch (SQLException | RuntimeException e) {
+            outstanding.decrementAndGet(replica);
+            throw e;
+        }
+    }
+
+    private int choose() {
+        // Starting from a rotating replica spreads ties, so idle replicas take turns
+        var start = Math.floorMod(next.getAndIncrement(), replicas.length);
+        if (balancing == Balancing.ROUND_ROBIN) {
+            return start;
+        }
+
+        var best = start;
+        var fewest = outstanding.get(start);
+        for (int i = 1; i < replicas.length && fewest > 0; i++) {
+            var replica = (start + i) % replicas.length;
+            var calls = outstanding.get(replica);
+            if (calls < fewest) {
+                best = replica;
+                fewest = calls;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    protected void giveBack(StatementCache statements) throws SQLException {
+        var replica = leased.remove(statements);
+        if (replica == null) {
+            primary.giveBack(statements);
+            return;
+        }
+        try {
+            replicas[replica].giveBack(statements);
+        } finally {
+            outstanding.decrementAndGet(replica);
+        }
+    }
+
+    /**
+     * Returns the number of read-only calls each replica is currently serving.
+     */
+    public int[] outstanding() {
+        var calls = new int[replicas.length];
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = outstanding.get(i);
+        }
+        return calls;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        var sources = new ArrayList<ConnectionSource>(replicas.length + 1);
+        sources.add(primary);
+        sources.addAll(Arrays.asList(replicas));
+        closeAll(sources);
+    }
+}
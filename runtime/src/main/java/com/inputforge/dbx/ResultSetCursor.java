@@ -0,0 +1,108 @@
+package com.inputforge.dbx;
+
+import com.inputforge.dbx.limit.ConcurrencyLimiter;
+import com.inputforge.dbx.metrics.QueryTimer;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.NoSuchElementException;
+
+final class ResultSetCursor<T> implements Cursor<T> {
+    private final ConnectionSource connections;
+    private final StatementCache statements;
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private final RowMapper<T> mapper;
+    private final QueryTimer timer;
+    private final ConcurrencyLimiter limiter;
+    private final long limitGranted;
+    private Throwable failure;
+    private long rows;
+    private boolean fetched;
+    private boolean closed;
+
+    ResultSetCursor(ConnectionSource connections, StatementCache statements,
+                    Statement statement, ResultSet resultSet, RowMapper<T> mapper, QueryTimer timer,
+                    ConcurrencyLimiter limiter, long limitGranted) {
+        this.connections = connections;
+        this.statements = statements;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.mapper = mapper;
+        this.timer = timer;
+        this.limiter = limiter;
+        this.limitGranted = limitGranted;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!fetched) {
+            try {
+                fetched = resultSet.next();
+            } catch (SQLException e) {
+                fail(e);
+                throw new RuntimeException(e);
+            }
+            if (!fetched) {
+                close();
+            }
+        }
+        return fetched;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        fetched = false;
+        try {
+            var row = mapper.map(resultSet);
+            rows++;
+            return row;
+        } catch (SQLException e) {
+            fail(e);
+            throw new RuntimeException(e);
+        } catch (RuntimeException e) {
+            fail(e);
+            throw e;
+        }
+    }
+
+    private void fail(Exception failure) {
+        if (timer != null) {
+            timer.failed(failure);
+        }
+        this.failure = failure;
+        close();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (timer != null) {
+            timer.finish(rows);
+        }
+        try {
+            try (statement; resultSet) {
+                // closes the result set, then the statement
+            } finally {
+                try {
+                    connections.release(statements);
+                } finally {
+                    // The permit is held for as long as the rows are read, like the connection
+                    limiter.release(limitGranted, failure);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
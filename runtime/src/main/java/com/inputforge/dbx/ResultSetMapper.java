@@ -1,10 +1,23 @@
 package com.inputforge.dbx;
 
+import com.inputforge.dbx.collection.DoubleList;
+import com.inputforge.dbx.collection.IntHashSet;
+import com.inputforge.dbx.collection.IntList;
+import com.inputforge.dbx.collection.LongHashSet;
+import com.inputforge.dbx.collection.LongList;
+import com.inputforge.dbx.collection.LongObjectMap;
+import com.inputforge.dbx.limit.ConcurrencyLimiter;
+import com.inputforge.dbx.metrics.QueryTimer;
+
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 public class ResultSetMapper {
@@ -23,4 +36,181 @@ public class ResultSetMapper {
         }
         return set;
     }
+
+    /**
+     * Reads the first column of every row without boxing, into a list sized for
+     * {@code expectedRows}. SQL {@code NULL} reads as {@code 0}.
+     */
+    public static IntList mapToIntList(ResultSet resultSet, int expectedRows) throws SQLException {
+        var list = new IntList(expectedRows);
+        while (resultSet.next()) {
+            list.add(resultSet.getInt(1));
+        }
+        return list;
+    }
+
+    public static LongList mapToLongList(ResultSet resultSet, int expectedRows) throws SQLException {
+        var list = new LongList(expectedRows);
+        while (resultSet.next()) {
+            list.add(resultSet.getLong(1));
+        }
+        return list;
+    }
+
+    public static DoubleList mapToDoubleList(ResultSet resultSet, int expectedRows) throws SQLException {
+        var list = new DoubleList(expectedRows);
+        while (resultSet.next()) {
+            list.add(resultSet.getDouble(1));
+        }
+        return list;
+    }
+
+    public static IntHashSet mapToIntSet(ResultSet resultSet, int expectedRows) throws SQLException {
+        var set = new IntHashSet(expectedRows);
+        while (resultSet.next()) {
+            set.add(resultSet.getInt(1));
+        }
+        return set;
+    }
+
+    public static LongHashSet mapToLongSet(ResultSet resultSet, int expectedRows) throws SQLException {
+        var set = new LongHashSet(expectedRows);
+        while (resultSet.next()) {
+            set.add(resultSet.getLong(1));
+        }
+        return set;
+    }
+
+    public static <T> T mapToObject(ResultSet resultSet, RowMapper<T> mapper) throws SQLException {
+        return resultSet.next() ? mapper.map(resultSet) : null;
+    }
+
+    public static <T> List<T> mapToList(ResultSet resultSet, RowMapper<T> mapper) throws SQLException {
+        List<T> list = new ArrayList<>();
+        while (resultSet.next()) {
+            list.add(mapper.map(resultSet));
+        }
+        return list;
+    }
+
+    public static <T> Set<T> mapToSet(ResultSet resultSet, RowMapper<T> mapper) throws SQLException {
+        Set<T> set = new HashSet<>();
+        while (resultSet.next()) {
+            set.add(mapper.map(resultSet));
+        }
+        return set;
+    }
+
+    /**
+     * Indexes rows by key in a single pass, keeping the first row of each key. The table is sized
+     * for {@code expectedRows}.
+     */
+    public static <K, V> Map<K, V> mapToMap(ResultSet resultSet, RowMapper<K> key, RowMapper<V> mapper,
+                                            int expectedRows) throws SQLException {
+        var map = new HashMap<K, V>(hashCapacity(expectedRows));
+        while (resultSet.next()) {
+            var rowKey = key.map(resultSet);
+            if (!map.containsKey(rowKey)) {
+                map.put(rowKey, mapper.map(resultSet));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Like {@link #mapToMap}, for long keys read from {@code keyColumn}. Rows whose key is SQL
+     * {@code NULL} are skipped rather than merged with key {@code 0}.
+     */
+    public static <V> LongObjectMap<V> mapToLongMap(ResultSet resultSet, int keyColumn, RowMapper<V> mapper,
+                                                    int expectedRows) throws SQLException {
+        var map = new LongObjectMap<V>(expectedRows);
+        while (resultSet.next()) {
+            var rowKey = resultSet.getLong(keyColumn);
+            if (resultSet.wasNull()) {
+                continue;
+            }
+            if (!map.containsKey(rowKey)) {
+                map.put(rowKey, mapper.map(resultSet));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Groups rows by key in a single pass, keeping their order within each group.
+     */
+    public static <K, V> Map<K, List<V>> mapToGroups(ResultSet resultSet, RowMapper<K> key, RowMapper<V> mapper,
+                                                     int expectedRows) throws SQLException {
+        var map = new HashMap<K, List<V>>(hashCapacity(expectedRows));
+        while (resultSet.next()) {
+            map.computeIfAbsent(key.map(resultSet), k -> new ArrayList<>()).add(mapper.map(resultSet));
+        }
+        return map;
+    }
+
+    public static <V> LongObjectMap<List<V>> mapToLongGroups(ResultSet resultSet, int keyColumn, RowMapper<V> mapper,
+                                                             int expectedRows) throws SQLException {
+        var map = new LongObjectMap<List<V>>(expectedRows);
+        while (resultSet.next()) {
+            var rowKey = resultSet.getLong(keyColumn);
+            if (resultSet.wasNull()) {
+                continue;
+            }
+            var group = map.get(rowKey);
+            if (group == null) {
+                group = new ArrayList<>();
+                map.put(rowKey, group);
+            }
+            group.add(mapper.map(resultSet));
+        }
+        return map;
+    }
+
+    private static int hashCapacity(int expectedRows) {
+        return (int) Math.min(1 << 30, (long) expectedRows * 4 / 3 + 1);
+    }
+
+    public static <T> Cursor<T> mapToCursor(ConnectionSource connections, StatementCache statements,
+                                            Statement statement, ResultSet resultSet, RowMapper<T> mapper) {
+        return new ResultSetCursor<>(connections, statements, statement, resultSet, mapper, null,
+                ConcurrencyLimiter.unlimited(), 0);
+    }
+
+    /**
+     * Like {@link #mapToCursor(ConnectionSource, StatementCache, Statement, ResultSet, RowMapper)},
+     * finishing the timer with the number of rows read and returning the limiter's permit once the
+     * cursor is closed.
+     */
+    public static <T> Cursor<T> mapToCursor(ConnectionSource connections, StatementCache statements,
+                                            Statement statement, ResultSet resultSet, RowMapper<T> mapper,
+                                            QueryTimer timer, ConcurrencyLimiter limiter, long limitGranted) {
+        return new ResultSetCursor<>(connections, statements, statement, resultSet, mapper, timer,
+                limiter, limitGranted);
+    }
+
+    /**
+     * Resolves the index of each named column. Names match labels case-insensitively and ignoring
+     * underscores, so {@code firstName} finds a {@code first_name} column.
+     */
+    public static int[] columnIndexes(ResultSet resultSet, String... names) throws SQLException {
+        var metaData = resultSet.getMetaData();
+        var columns = new HashMap<String, Integer>();
+        for (int i = metaData.getColumnCount(); i >= 1; i--) {
+            columns.put(normalizeColumnName(metaData.getColumnLabel(i)), i);
+        }
+
+        var indexes = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            var index = columns.get(normalizeColumnName(names[i]));
+            if (index == null) {
+                throw new SQLException("No column matches " + names[i]);
+            }
+            indexes[i] = index;
+        }
+        return indexes;
+    }
+
+    private static String normalizeColumnName(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
 }
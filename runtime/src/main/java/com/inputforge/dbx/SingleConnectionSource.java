@@ -0,0 +1,70 @@
+package com.inputforge.dbx;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Executor;
+
+/**
+ * Lends one connection to one call at a time. Calls share its cached statements, and other
+ * sources on the same connection share its lock, so a call from another thread, whether
+ * synchronous, asynchronous or of another DAO, waits until the current call, transaction or
+ * streamed result is done.
+ */
+final class SingleConnectionSource extends ConnectionSource {
+    private final StatementCache statements;
+    private final ConnectionLock lock;
+
+    SingleConnectionSource(Connection connection, int statementCacheSize) {
+        this.statements = new StatementCache(connection, statementCacheSize);
+        this.lock = ConnectionLock.of(connection);
+    }
+
+    @Override
+    protected StatementCache borrow() throws SQLException {
+        lock.lock();
+        return statements;
+    }
+
+    @Override
+    protected void giveBack(StatementCache statements) {
+        lock.unlock();
+    }
+
+    /**
+     * Asynchronous calls are queued one after another rather than each taking an executor thread
+     * to wait for the connection. A call made while the caller holds the connection, as inside a
+     * transaction, runs on the caller's thread, since no other thread could have it until then.
+     */
+    @Override
+    public Executor executor(Executor executor) {
+        var serial = new SerialExecutor(executor);
+        return task -> {
+            if (lock.isHeldByCurrentThread()) {
+                task.run();
+            } else {
+                serial.execute(task);
+            }
+        };
+    }
+
+    @Override
+    public boolean supportsParallelCalls() {
+        return false;
+    }
+
+    @Override
+    void daoClosed() throws SQLException {
+        close();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        // Waits for a call still using the statements; they are prepared again if used after
+        lock.lock();
+        try {
+            statements.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.inputforge.dbx;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls with equal keys into one execution. The first caller runs the
+ * query; callers arriving while it is in flight wait for and share its result or failure.
+ */
+public final class SingleFlightGroup<K, V> {
+    private static final Object NULL_KEY = new Object();
+
+    private final Map<Object, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V execute(K key, Supplier<V> query) {
+        var flightKey = key == null ? NULL_KEY : key;
+        var flight = new CompletableFuture<V>();
+        var existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            var result = query.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
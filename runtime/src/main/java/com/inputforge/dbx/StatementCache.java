@@ -0,0 +1,83 @@
+package com.inputforge.dbx;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class StatementCache implements AutoCloseable {
+    private final Connection connection;
+    private final int capacity;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    public StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.capacity = capacity;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= StatementCache.this.capacity) {
+                    return false;
+                }
+                closeEvicted(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    public Connection connection() {
+        return connection;
+    }
+
+    public PreparedStatement prepare(String sql) throws SQLException {
+        var statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            if (capacity > 0) {
+                statements.put(sql, statement);
+            }
+        }
+        return statement;
+    }
+
+    public void release(PreparedStatement statement) throws SQLException {
+        if (capacity == 0) {
+            statement.close();
+        }
+    }
+
+    public void prepareAll(String... queries) throws SQLException {
+        for (int i = 0; i < queries.length && i < capacity; i++) {
+            prepare(queries[i]);
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        SQLException failure = null;
+        for (var statement : statements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        statements.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void closeEvicted(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // The statement is being discarded; a failed close leaves nothing for us to recover.
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.inputforge.dbx.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, concurrent LRU cache for the results of a {@code @Cached} DAO method. Keys are spread
+ * over independently locked segments, each evicting its least recently used entry when full.
+ * Entries optionally expire after a fixed time to live.
+ */
+public final class QueryCache<K, V> {
+    /**
+     * Key of methods without parameters.
+     */
+    public static final Object NO_ARGUMENTS = new Object();
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile long generation;
+
+    /**
+     * @param maxSize  maximum number of entries
+     * @param ttlNanos time to live of an entry, or {@code 0} to keep entries until evicted
+     */
+    @SuppressWarnings("unchecked")
+    public QueryCache(int maxSize, long ttlNanos) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1");
+        }
+        var segmentCount = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, maxSize / 8)));
+        this.segments = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>((maxSize + segmentCount - 1) / segmentCount);
+        }
+        this.ttlNanos = ttlNanos;
+    }
+
+    /**
+     * Returns the cached entry for the key, or {@code null} on a miss. A present entry may hold a
+     * {@code null} value.
+     */
+    public Entry<V> get(Object key) {
+        var segment = segment(key);
+        Entry<V> entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+            if (entry != null && entry.expiresAt != 0 && entry.expiresAt - System.nanoTime() < 0) {
+                segment.remove(key);
+                entry = null;
+            }
+        }
+        (entry != null ? hits : misses).increment();
+        return entry;
+    }
+
+    /**
+     * Returns the current generation; pass it to {@link #put} so values loaded before a
+     * concurrent {@link #clear()} are not cached.
+     */
+    public long generation() {
+        return generation;
+    }
+
+    public void put(K key, V value, long generation) {
+        var entry = new Entry<>(value, ttlNanos > 0 ? Math.max(System.nanoTime() + ttlNanos, 1) : 0);
+        var segment = segment(key);
+        synchronized (segment) {
+            if (generation == this.generation) {
+                segment.put(key, entry);
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (this) {
+            generation++;
+        }
+        for (var segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        var size = 0;
+        for (var segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    private Segment<K, V> segment(Object key) {
+        var hash = key == null ? 0 : key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    public static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        public V value() {
+            return value;
+        }
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, QueryCache.Entry<V>> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, QueryCache.Entry<V>> eldest) {
+            return size() > capacity;
+        }
+    }
+}
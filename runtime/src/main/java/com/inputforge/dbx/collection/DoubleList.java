@@ -0,0 +1,56 @@
+package com.inputforge.dbx.collection;
+
+import java.util.Arrays;
+
+public final class DoubleList {
+    private static final double[] EMPTY = new double[0];
+
+    private double[] values;
+    private int size;
+
+    public DoubleList() {
+        this.values = EMPTY;
+    }
+
+    public DoubleList(int capacity) {
+        this.values = capacity > 0 ? new double[capacity] : EMPTY;
+    }
+
+    public void add(double value) {
+        if (size == values.length) {
+            grow(size + 1);
+        }
+        values[size++] = value;
+    }
+
+    public void addAll(double[] values) {
+        if (size + values.length > this.values.length) {
+            grow(size + values.length);
+        }
+        System.arraycopy(values, 0, this.values, size, values.length);
+        size += values.length;
+    }
+
+    public double get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    private void grow(int minCapacity) {
+        values = Arrays.copyOf(values, Math.max(minCapacity, Math.max(16, values.length + (values.length >> 1))));
+    }
+}
@@ -0,0 +1,119 @@
+package com.inputforge.dbx.collection;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Set of ints in an open-addressing table, without boxing.
+ */
+public final class IntHashSet {
+    // 0 marks a free slot, so it is tracked separately
+    private int[] slots;
+    private boolean containsZero;
+    private int size;
+
+    public IntHashSet() {
+        this(0);
+    }
+
+    public IntHashSet(int expectedSize) {
+        this.slots = new int[tableSize(expectedSize)];
+    }
+
+    public boolean add(int value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if (insert(slots, value)) {
+            if (++size > slots.length >> 1) {
+                rehash(slots.length << 1);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public boolean contains(int value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        var mask = slots.length - 1;
+        for (int i = mix(value) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            if (slots[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        if (containsZero) {
+            action.accept(0);
+        }
+        for (var value : slots) {
+            if (value != 0) {
+                action.accept(value);
+            }
+        }
+    }
+
+    public int[] toArray() {
+        var values = new int[size];
+        var next = containsZero ? 1 : 0;
+        for (var value : slots) {
+            if (value != 0) {
+                values[next++] = value;
+            }
+        }
+        return values;
+    }
+
+    private static boolean insert(int[] slots, int value) {
+        var mask = slots.length - 1;
+        var i = mix(value) & mask;
+        for (; slots[i] != 0; i = (i + 1) & mask) {
+            if (slots[i] == value) {
+                return false;
+            }
+        }
+        slots[i] = value;
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        var old = slots;
+        slots = new int[capacity];
+        for (var value : old) {
+            if (value != 0) {
+                insert(slots, value);
+            }
+        }
+    }
+
+    private static int mix(int value) {
+        var hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns a power of two keeping the table at most half full.
+     */
+    static int tableSize(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative");
+        }
+        return Math.max(16, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1);
+    }
+}
@@ -0,0 +1,110 @@
+package com.inputforge.dbx.collection;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Set of longs in an open-addressing table, without boxing.
+ */
+public final class LongHashSet {
+    // 0 marks a free slot, so it is tracked separately
+    private long[] slots;
+    private boolean containsZero;
+    private int size;
+
+    public LongHashSet() {
+        this(0);
+    }
+
+    public LongHashSet(int expectedSize) {
+        this.slots = new long[IntHashSet.tableSize(expectedSize)];
+    }
+
+    public boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if (insert(slots, value)) {
+            if (++size > slots.length >> 1) {
+                rehash(slots.length << 1);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        var mask = slots.length - 1;
+        for (int i = mix(value) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            if (slots[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(LongConsumer action) {
+        if (containsZero) {
+            action.accept(0);
+        }
+        for (var value : slots) {
+            if (value != 0) {
+                action.accept(value);
+            }
+        }
+    }
+
+    public long[] toArray() {
+        var values = new long[size];
+        var next = containsZero ? 1 : 0;
+        for (var value : slots) {
+            if (value != 0) {
+                values[next++] = value;
+            }
+        }
+        return values;
+    }
+
+    private static boolean insert(long[] slots, long value) {
+        var mask = slots.length - 1;
+        var i = mix(value) & mask;
+        for (; slots[i] != 0; i = (i + 1) & mask) {
+            if (slots[i] == value) {
+                return false;
+            }
+        }
+        slots[i] = value;
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        var old = slots;
+        slots = new long[capacity];
+        for (var value : old) {
+            if (value != 0) {
+                insert(slots, value);
+            }
+        }
+    }
+
+    private static int mix(long value) {
+        var hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.inputforge.dbx.collection;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map from long keys to values in an open-addressing table, so lookups by {@link #get(long)} do
+ * not box the key. Entries cannot be removed.
+ */
+public final class LongObjectMap<V> extends AbstractMap<Long, V> {
+    // 0 marks a free slot, so the entry of key 0 is kept separately
+    private long[] keys;
+    private Object[] values;
+    private boolean containsZero;
+    private V zeroValue;
+    private int size;
+
+    public LongObjectMap() {
+        this(0);
+    }
+
+    public LongObjectMap(int expectedSize) {
+        var capacity = IntHashSet.tableSize(expectedSize);
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) {
+            return zeroValue;
+        }
+        var slot = find(keys, key);
+        return keys[slot] != 0 ? (V) values[slot] : null;
+    }
+
+    public boolean containsKey(long key) {
+        return key == 0 ? containsZero : keys[find(keys, key)] != 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == 0) {
+            var previous = zeroValue;
+            if (!containsZero) {
+                containsZero = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        var slot = find(keys, key);
+        var previous = (V) values[slot];
+        values[slot] = value;
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            if (++size > keys.length >> 1) {
+                rehash(keys.length << 1);
+            }
+        }
+        return previous;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Long ? get((long) (Long) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Long && containsKey((long) (Long) key);
+    }
+
+    @Override
+    public V put(Long key, V value) {
+        return put((long) key, value);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Map.Entry<Long, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<Long, V>> iterator() {
+                return new Entries();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int find(long[] keys, long key) {
+        var mask = keys.length - 1;
+        var hash = key * 0x9E3779B97F4A7C15L;
+        var slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        var oldKeys = keys;
+        var oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                var slot = find(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private final class Entries implements Iterator<Map.Entry<Long, V>> {
+        // -1 stands for the entry of key 0
+        private int next = containsZero ? -1 : advance(0);
+
+        private int advance(int from) {
+            while (from < keys.length && keys[from] == 0) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < keys.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<Long, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            var slot = next;
+            next = advance(slot + 1);
+            return slot < 0
+                    ? new SimpleImmutableEntry<>(0L, zeroValue)
+                    : new SimpleImmutableEntry<>(keys[slot], (V) values[slot]);
+        }
+    }
+}
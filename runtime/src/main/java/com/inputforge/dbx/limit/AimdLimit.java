@@ -0,0 +1,39 @@
+package com.inputforge.dbx.limit;
+
+final class AimdLimit implements Limit {
+    private static final double BACKOFF = 0.9;
+
+    private final int min;
+    private final int max;
+    private final long latencyThresholdNanos;
+    private double limit;
+
+    AimdLimit(int initial, int min, int max, long latencyThresholdNanos) {
+        checkBounds(initial, min, max);
+        this.min = min;
+        this.max = max;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = initial;
+    }
+
+    static void checkBounds(int initial, int min, int max) {
+        if (min < 1 || initial < min || max < initial) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+    }
+
+    @Override
+    public int current() {
+        return (int) limit;
+    }
+
+    @Override
+    public void onSample(long latencyNanos, int inFlight, boolean overloaded) {
+        if (overloaded || latencyNanos > latencyThresholdNanos) {
+            limit = Math.max(min, limit * BACKOFF);
+        } else if (inFlight * 2 >= limit) {
+            // Only grow while the limit is actually reached, not when callers are idle
+            limit = Math.min(max, limit + 1);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.inputforge.dbx.limit;
+
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bulkhead limiting how many calls of a DAO, or of some of its methods, run at once. Calls over
+ * the limit wait in a bounded queue, or are rejected with {@link LimitExceededException} when the
+ * queue is full or the wait times out, so a slow database does not tie up every caller thread.
+ * Calls failing with an {@link SQLTransientException}, such as a timeout or an exhausted pool,
+ * count as overload for adaptive limits.
+ */
+public final class ConcurrencyLimiter {
+    private static final ConcurrencyLimiter UNLIMITED = new ConcurrencyLimiter(null, 0, 0);
+
+    private final Limit limit;
+    private final int maxQueued;
+    private final long maxWaitNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    // Written under the lock, read without it for monitoring
+    private volatile int inFlight;
+    private volatile int queued;
+    private volatile long rejected;
+
+    private ConcurrencyLimiter(Limit limit, int maxQueued, long maxWaitNanos) {
+        this.limit = limit;
+        this.maxQueued = maxQueued;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    public static ConcurrencyLimiter unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Rejects calls over the limit immediately.
+     */
+    public static ConcurrencyLimiter create(Limit limit) {
+        return create(limit, 0, Duration.ZERO);
+    }
+
+    public static ConcurrencyLimiter create(Limit limit, int maxQueued, Duration maxWait) {
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("Queue size must not be negative");
+        }
+        if (maxWait.isNegative()) {
+            throw new IllegalArgumentException("Maximum wait must not be negative");
+        }
+        return new ConcurrencyLimiter(limit, maxQueued, maxWait.toNanos());
+    }
+
+    /**
+     * Waits for a permit, returning the time it was granted to pass to {@link #release}.
+     */
+    public long acquire() {
+        if (limit == null) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            if (inFlight >= limit.current()) {
+                await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+        return System.nanoTime();
+    }
+
+    private void await() {
+        if (queued >= maxQueued) {
+            throw reject("no room to queue");
+        }
+        queued++;
+        try {
+            var remaining = maxWaitNanos;
+            while (inFlight >= limit.current()) {
+                if (remaining <= 0) {
+                    throw reject("timed out after " + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + "ms in the queue");
+                }
+                remaining = available.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("interrupted in the queue");
+        } finally {
+            queued--;
+        }
+    }
+
+    private LimitExceededException reject(String reason) {
+        rejected++;
+        return new LimitExceededException("Concurrency limit of " + limit.current() + " reached, " + reason);
+    }
+
+    /**
+     * Returns the permit of a finished call, with the call's failure or {@code null}.
+     */
+    public void release(long grantedNanos, Throwable failure) {
+        if (limit == null) {
+            return;
+        }
+        var latency = System.nanoTime() - grantedNanos;
+        lock.lock();
+        try {
+            limit.onSample(latency, inFlight, isOverload(failure));
+            inFlight--;
+            for (int free = limit.current() - inFlight; free > 0 && lock.hasWaiters(available); free--) {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean isOverload(Throwable failure) {
+        for (var cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int limit() {
+        if (limit == null) {
+            return Integer.MAX_VALUE;
+        }
+        lock.lock();
+        try {
+            return limit.current();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        return inFlight;
+    }
+
+    public int queued() {
+        return queued;
+    }
+
+    public long rejected() {
+        return rejected;
+    }
+}
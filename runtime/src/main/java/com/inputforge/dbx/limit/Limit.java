@@ -0,0 +1,52 @@
+package com.inputforge.dbx.limit;
+
+import java.time.Duration;
+
+/**
+ * Decides how many calls a {@link ConcurrencyLimiter} lets run at once. Adaptive limits adjust
+ * after every call; they are only used under the limiter's lock, so they need no synchronization
+ * of their own, but must not be shared between limiters.
+ */
+public interface Limit {
+
+    static Limit fixed(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return new Limit() {
+            @Override
+            public int current() {
+                return limit;
+            }
+
+            @Override
+            public void onSample(long latencyNanos, int inFlight, boolean overloaded) {
+            }
+        };
+    }
+
+    /**
+     * Additive increase, multiplicative decrease: grows by one after each call that finished
+     * within the latency threshold while the limit was in use, and shrinks by 10% after a slower
+     * call or a timeout.
+     */
+    static Limit aimd(int initial, int min, int max, Duration latencyThreshold) {
+        return new AimdLimit(initial, min, max, latencyThreshold.toNanos());
+    }
+
+    /**
+     * Estimates how many calls are queued in the database from the ratio of the latest latency to
+     * the lowest seen, in the manner of TCP Vegas, and keeps that queue short.
+     */
+    static Limit vegas(int initial, int min, int max) {
+        return new VegasLimit(initial, min, max);
+    }
+
+    int current();
+
+    /**
+     * Called after every call with its latency, the number of calls running including it, and
+     * whether it failed with a timeout or another sign of overload.
+     */
+    void onSample(long latencyNanos, int inFlight, boolean overloaded);
+}
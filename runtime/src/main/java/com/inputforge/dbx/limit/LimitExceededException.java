@@ -0,0 +1,13 @@
+package com.inputforge.dbx.limit;
+
+/**
+ * Thrown by a DAO method whose {@link ConcurrencyLimiter} is full and could not queue the call,
+ * or did not free up within the maximum wait.
+ */
+public class LimitExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public LimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,52 @@
+package com.inputforge.dbx.limit;
+
+final class VegasLimit implements Limit {
+    private static final int PROBE_INTERVAL = 1000;
+
+    private final int min;
+    private final int max;
+    private int limit;
+    private long minLatencyNanos;
+    private int samples;
+
+    VegasLimit(int initial, int min, int max) {
+        AimdLimit.checkBounds(initial, min, max);
+        this.min = min;
+        this.max = max;
+        this.limit = initial;
+    }
+
+    @Override
+    public int current() {
+        return limit;
+    }
+
+    @Override
+    public void onSample(long latencyNanos, int inFlight, boolean overloaded) {
+        // Forget the lowest latency now and then, so that a permanently slower database is not
+        // taken for a congested one
+        if (++samples % PROBE_INTERVAL == 0) {
+            minLatencyNanos = 0;
+        }
+        var latency = Math.max(latencyNanos, 1);
+        if (minLatencyNanos == 0 || latency < minLatencyNanos) {
+            minLatencyNanos = latency;
+        }
+
+        var step = Math.max(1, (int) Math.log10(limit));
+        if (overloaded) {
+            limit = Math.max(min, limit - step);
+            return;
+        }
+        if (inFlight * 2 < limit) {
+            return;
+        }
+
+        var queued = (int) Math.ceil(limit * (1 - (double) minLatencyNanos / latency));
+        if (queued < 3 * step) {
+            limit = Math.min(max, limit + step);
+        } else if (queued > 6 * step) {
+            limit = Math.max(min, limit - step);
+        }
+    }
+}
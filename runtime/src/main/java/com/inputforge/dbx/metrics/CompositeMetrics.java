@@ -0,0 +1,90 @@
+package com.inputforge.dbx.metrics;
+
+import java.util.List;
+
+final class CompositeMetrics implements DaoMetrics {
+    private final List<DaoMetrics> metrics;
+
+    CompositeMetrics(List<DaoMetrics> metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        for (var listener : metrics) {
+            if (listener.isEnabled()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the state of every listener, {@code null} for those that are disabled.
+     */
+    @Override
+    public Object started(QueryId query) {
+        var states = new Object[metrics.size()];
+        for (int i = 0; i < states.length; i++) {
+            var listener = metrics.get(i);
+            if (listener.isEnabled()) {
+                states[i] = listener.started(query);
+            }
+        }
+        return states;
+    }
+
+    @Override
+    public void recordSuccess(QueryId query, long prepareNanos, long executeNanos, long mapNanos, long rows) {
+        recordSuccess(query, null, prepareNanos, executeNanos, mapNanos, rows);
+    }
+
+    @Override
+    public void recordSuccess(QueryId query, Object state, long prepareNanos, long executeNanos, long mapNanos,
+                              long rows) {
+        for (int i = 0; i < metrics.size(); i++) {
+            var listener = metrics.get(i);
+            if (listener.isEnabled()) {
+                listener.recordSuccess(query, state(state, i), prepareNanos, executeNanos, mapNanos, rows);
+            }
+        }
+    }
+
+    @Override
+    public void recordFailure(QueryId query, long elapsedNanos, Throwable failure) {
+        recordFailure(query, null, elapsedNanos, failure);
+    }
+
+    @Override
+    public void recordFailure(QueryId query, Object state, long elapsedNanos, Throwable failure) {
+        for (int i = 0; i < metrics.size(); i++) {
+            var listener = metrics.get(i);
+            if (listener.isEnabled()) {
+                listener.recordFailure(query, state(state, i), elapsedNanos, failure);
+            }
+        }
+    }
+
+    @Override
+    public void recordCancel(QueryId query, Object state, long elapsedNanos) {
+        for (int i = 0; i < metrics.size(); i++) {
+            var listener = metrics.get(i);
+            if (listener.isEnabled()) {
+                listener.recordCancel(query, state(state, i), elapsedNanos);
+            }
+        }
+    }
+
+    private static Object state(Object states, int listener) {
+        return states instanceof Object[] ? ((Object[]) states)[listener] : null;
+    }
+
+    @Override
+    public void recordHedge(QueryId query, boolean won) {
+        for (var listener : metrics) {
+            if (listener.isEnabled()) {
+                listener.recordHedge(query, won);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.inputforge.dbx.metrics;
+
+import java.util.List;
+
+/**
+ * Receives timings for every call of a generated DAO method. Implementations must be thread-safe.
+ * Generated methods only start timing when {@link #isEnabled()} returns {@code true}, so a
+ * disabled listener costs a single check per call.
+ */
+public interface DaoMetrics {
+
+    static DaoMetrics disabled() {
+        return DisabledMetrics.INSTANCE;
+    }
+
+    /**
+     * Returns the standard listener: JMX statistics per query, plus Flight Recorder events when
+     * the JVM supports them.
+     */
+    static DaoMetrics defaults() {
+        if (ModuleLayer.boot().findModule("jdk.jfr").isPresent()) {
+            return of(jmx(), FlightRecorderMetrics.INSTANCE);
+        }
+        return jmx();
+    }
+
+    static JmxDaoMetrics jmx() {
+        return JmxDaoMetrics.INSTANCE;
+    }
+
+    static DaoMetrics flightRecorder() {
+        return FlightRecorderMetrics.INSTANCE;
+    }
+
+    static DaoMetrics of(DaoMetrics... metrics) {
+        return new CompositeMetrics(List.of(metrics));
+    }
+
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Called when a call starts. The returned state, which may be {@code null}, is passed back
+     * when the call is recorded.
+     */
+    default Object started(QueryId query) {
+        return null;
+    }
+
+    /**
+     * Called when a query completed. Preparation includes acquiring the connection and binding
+     * parameters; mapping covers reading the rows, which for streamed results lasts until the
+     * stream is closed.
+     */
+    void recordSuccess(QueryId query, long prepareNanos, long executeNanos, long mapNanos, long rows);
+
+    void recordFailure(QueryId query, long elapsedNanos, Throwable failure);
+
+    default void recordSuccess(QueryId query, Object state, long prepareNanos, long executeNanos, long mapNanos,
+                               long rows) {
+        recordSuccess(query, prepareNanos, executeNanos, mapNanos, rows);
+    }
+
+    default void recordFailure(QueryId query, Object state, long elapsedNanos, Throwable failure) {
+        recordFailure(query, elapsedNanos, failure);
+    }
+
+    /**
+     * Called when the losing attempt of a {@code @Hedged} call ended after being cancelled, in
+     * place of recording it as a success or failure.
+     */
+    default void recordCancel(QueryId query, Object state, long elapsedNanos) {
+    }
+
+    /**
+     * Called when a {@code @Hedged} call sent a second attempt, with whether that attempt's result
+     * was used. The winning attempt is recorded as a call, the other through {@link #recordCancel}.
+     */
+    default void recordHedge(QueryId query, boolean won) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.inputforge.dbx.metrics;
+
+final class DisabledMetrics implements DaoMetrics {
+    static final DisabledMetrics INSTANCE = new DisabledMetrics();
+
+    private DisabledMetrics() {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void recordSuccess(QueryId query, long prepareNanos, long executeNanos, long mapNanos, long rows) {
+    }
+
+    @Override
+    public void recordFailure(QueryId query, long elapsedNanos, Throwable failure) {
+    }
+}
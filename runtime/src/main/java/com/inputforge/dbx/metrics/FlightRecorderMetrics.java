@@ -0,0 +1,79 @@
+package com.inputforge.dbx.metrics;
+
+import jdk.jfr.EventType;
+
+/**
+ * Commits a {@code com.inputforge.dbx.Query} Flight Recorder event per call, begun when the call
+ * starts so its duration covers the whole call. It is only enabled while a recording with that
+ * event turned on is running.
+ */
+final class FlightRecorderMetrics implements DaoMetrics {
+    static final FlightRecorderMetrics INSTANCE = new FlightRecorderMetrics();
+
+    private final EventType eventType = EventType.getEventType(QueryEvent.class);
+
+    private FlightRecorderMetrics() {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return eventType.isEnabled();
+    }
+
+    @Override
+    public Object started(QueryId query) {
+        var event = new QueryEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void recordSuccess(QueryId query, long prepareNanos, long executeNanos, long mapNanos, long rows) {
+        recordSuccess(query, null, prepareNanos, executeNanos, mapNanos, rows);
+    }
+
+    @Override
+    public void recordSuccess(QueryId query, Object state, long prepareNanos, long executeNanos, long mapNanos,
+                              long rows) {
+        var event = event(query, state);
+        event.rows = rows;
+        event.prepare = prepareNanos;
+        event.execute = executeNanos;
+        event.map = mapNanos;
+        event.commit();
+    }
+
+    @Override
+    public void recordFailure(QueryId query, long elapsedNanos, Throwable failure) {
+        recordFailure(query, null, elapsedNanos, failure);
+    }
+
+    @Override
+    public void recordFailure(QueryId query, Object state, long elapsedNanos, Throwable failure) {
+        var event = event(query, state);
+        event.failure = failure.toString();
+        event.commit();
+    }
+
+    @Override
+    public void recordCancel(QueryId query, Object state, long elapsedNanos) {
+        var event = event(query, state);
+        event.cancelled = true;
+        event.commit();
+    }
+
+    // Events recorded without being started have no duration
+    private static QueryEvent event(QueryId query, Object state) {
+        QueryEvent event;
+        if (state instanceof QueryEvent) {
+            event = (QueryEvent) state;
+            event.end();
+        } else {
+            event = new QueryEvent();
+        }
+        event.dao = query.dao();
+        event.method = query.method();
+        event.sql = query.sql();
+        return event;
+    }
+}
@@ -0,0 +1,71 @@
+package com.inputforge.dbx.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps latency histograms and counters per DAO method and publishes them as MXBeans on the
+ * platform MBean server.
+ */
+public final class JmxDaoMetrics implements DaoMetrics {
+    static final JmxDaoMetrics INSTANCE = new JmxDaoMetrics();
+
+    private final Map<QueryId, QueryStats> stats = new ConcurrentHashMap<>();
+
+    private JmxDaoMetrics() {
+    }
+
+    @Override
+    public void recordSuccess(QueryId query, long prepareNanos, long executeNanos, long mapNanos, long rows) {
+        stats(query).recordSuccess(prepareNanos, executeNanos, mapNanos, rows);
+    }
+
+    @Override
+    public void recordFailure(QueryId query, long elapsedNanos, Throwable failure) {
+        stats(query).recordFailure(elapsedNanos);
+    }
+
+    @Override
+    public void recordHedge(QueryId query, boolean won) {
+        stats(query).recordHedge(won);
+    }
+
+    public QueryStatsMXBean stats(String dao, String method) {
+        for (var entry : stats.entrySet()) {
+            if (entry.getKey().dao().equals(dao) && entry.getKey().method().equals(method)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private QueryStats stats(QueryId query) {
+        var queryStats = stats.get(query);
+        if (queryStats == null) {
+            queryStats = stats.computeIfAbsent(query, JmxDaoMetrics::register);
+        }
+        return queryStats;
+    }
+
+    private static QueryStats register(QueryId query) {
+        var queryStats = new QueryStats(query);
+        var server = ManagementFactory.getPlatformMBeanServer();
+        // Overloaded methods share a name, so later ones get a numeric suffix
+        for (int i = 1; ; i++) {
+            var method = i == 1 ? query.method() : query.method() + "#" + i;
+            try {
+                server.registerMBean(queryStats, new ObjectName("com.inputforge.dbx:type=Query,dao="
+                        + ObjectName.quote(query.dao()) + ",method=" + ObjectName.quote(method)));
+                return queryStats;
+            } catch (InstanceAlreadyExistsException e) {
+                // try the next suffix
+            } catch (JMException e) {
+                return queryStats;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.inputforge.dbx.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("com.inputforge.dbx.Query")
+@Label("DAO Query")
+@Category("dbx")
+@Description("A call of a generated DAO method, lasting from its start until it completes")
+@StackTrace(false)
+class QueryEvent extends jdk.jfr.Event {
+    @Label("DAO")
+    String dao;
+
+    @Label("Method")
+    String method;
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Prepare")
+    @Timespan
+    long prepare;
+
+    @Label("Execute")
+    @Timespan
+    long execute;
+
+    @Label("Map")
+    @Timespan
+    long map;
+
+    @Label("Failure")
+    String failure;
+
+    @Label("Cancelled")
+    @Description("A hedged attempt cancelled because the other attempt finished first")
+    boolean cancelled;
+}
@@ -0,0 +1,37 @@
+package com.inputforge.dbx.metrics;
+
+/**
+ * Identifies a DAO method. Generated DAOs hold one constant per method, so listeners can key
+ * their statistics by identity.
+ */
+public final class QueryId {
+    private final String dao;
+    private final String method;
+    private final String sql;
+
+    public QueryId(String dao, String method, String sql) {
+        this.dao = dao;
+        this.method = method;
+        this.sql = sql;
+    }
+
+    /**
+     * Fully qualified name of the DAO interface.
+     */
+    public String dao() {
+        return dao;
+    }
+
+    public String method() {
+        return method;
+    }
+
+    public String sql() {
+        return sql;
+    }
+
+    @Override
+    public String toString() {
+        return dao + "." + method;
+    }
+}
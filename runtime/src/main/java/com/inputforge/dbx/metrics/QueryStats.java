@@ -0,0 +1,126 @@
+package com.inputforge.dbx.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+final class QueryStats implements QueryStatsMXBean {
+    private final QueryId query;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder prepareNanos = new LongAdder();
+    private final LongAdder executeNanos = new LongAdder();
+    private final LongAdder mapNanos = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    QueryStats(QueryId query) {
+        this.query = query;
+    }
+
+    void recordSuccess(long prepareNanos, long executeNanos, long mapNanos, long rows) {
+        var elapsed = prepareNanos + executeNanos + mapNanos;
+        latency.record(elapsed);
+        totalNanos.add(elapsed);
+        this.prepareNanos.add(prepareNanos);
+        this.executeNanos.add(executeNanos);
+        this.mapNanos.add(mapNanos);
+        this.rows.add(rows);
+    }
+
+    void recordFailure(long elapsedNanos) {
+        latency.record(elapsedNanos);
+        totalNanos.add(elapsedNanos);
+        errors.increment();
+    }
+
+    void recordHedge(boolean won) {
+        hedges.increment();
+        if (won) {
+            hedgeWins.increment();
+        }
+    }
+
+    @Override
+    public String getSql() {
+        return query.sql();
+    }
+
+    @Override
+    public long getCalls() {
+        return latency.count();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanLatencyMicros() {
+        return mean(totalNanos, latency.count());
+    }
+
+    @Override
+    public long getP50LatencyMicros() {
+        return micros(latency.percentile(50));
+    }
+
+    @Override
+    public long getP95LatencyMicros() {
+        return micros(latency.percentile(95));
+    }
+
+    @Override
+    public long getP99LatencyMicros() {
+        return micros(latency.percentile(99));
+    }
+
+    @Override
+    public long getMaxLatencyMicros() {
+        return micros(latency.max());
+    }
+
+    @Override
+    public double getMeanPrepareMicros() {
+        return mean(prepareNanos, successes());
+    }
+
+    @Override
+    public double getMeanExecuteMicros() {
+        return mean(executeNanos, successes());
+    }
+
+    @Override
+    public double getMeanMapMicros() {
+        return mean(mapNanos, successes());
+    }
+
+    @Override
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    @Override
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    private long successes() {
+        return latency.count() - errors.sum();
+    }
+
+    private static double mean(LongAdder nanos, long count) {
+        return count == 0 ? 0 : nanos.sum() / 1000.0 / count;
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
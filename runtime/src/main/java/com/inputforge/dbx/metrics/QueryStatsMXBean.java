@@ -0,0 +1,41 @@
+package com.inputforge.dbx.metrics;
+
+/**
+ * Statistics of one DAO method, registered as
+ * {@code com.inputforge.dbx:type=Query,dao=<interface>,method=<name>}. Times are in microseconds.
+ */
+public interface QueryStatsMXBean {
+    String getSql();
+
+    long getCalls();
+
+    long getErrors();
+
+    long getRows();
+
+    double getMeanLatencyMicros();
+
+    long getP50LatencyMicros();
+
+    long getP95LatencyMicros();
+
+    long getP99LatencyMicros();
+
+    long getMaxLatencyMicros();
+
+    double getMeanPrepareMicros();
+
+    double getMeanExecuteMicros();
+
+    double getMeanMapMicros();
+
+    /**
+     * Number of {@code @Hedged} calls that sent a second attempt.
+     */
+    long getHedges();
+
+    /**
+     * Number of hedges whose second attempt finished first.
+     */
+    long getHedgeWins();
+}
@@ -0,0 +1,62 @@
+package com.inputforge.dbx.metrics;
+
+/**
+ * Times one call of a generated DAO method. {@link #start} returns {@code null} when metrics are
+ * disabled, and generated code skips all further calls in that case.
+ */
+public final class QueryTimer {
+    private final DaoMetrics metrics;
+    private final QueryId query;
+    private final long start;
+    private final Object state;
+    private long prepared;
+    private long executed;
+    private boolean done;
+
+    private QueryTimer(DaoMetrics metrics, QueryId query) {
+        this.metrics = metrics;
+        this.query = query;
+        this.start = System.nanoTime();
+        this.prepared = start;
+        this.executed = start;
+        this.state = metrics.started(query);
+    }
+
+    public static QueryTimer start(DaoMetrics metrics, QueryId query) {
+        return metrics.isEnabled() ? new QueryTimer(metrics, query) : null;
+    }
+
+    public void prepared() {
+        prepared = System.nanoTime();
+        executed = prepared;
+    }
+
+    public void executed() {
+        executed = System.nanoTime();
+    }
+
+    public void finish(long rows) {
+        if (done) {
+            return;
+        }
+        done = true;
+        var end = System.nanoTime();
+        metrics.recordSuccess(query, state, prepared - start, executed - prepared, end - executed, rows);
+    }
+
+    public void failed(Throwable failure) {
+        if (done) {
+            return;
+        }
+        done = true;
+        metrics.recordFailure(query, state, System.nanoTime() - start, failure);
+    }
+
+    public void cancelled() {
+        if (done) {
+            return;
+        }
+        done = true;
+        metrics.recordCancel(query, state, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,221 @@
+package com.inputforge.dbx.pool;
+
+import com.inputforge.dbx.ConnectionSource;
+import com.inputforge.dbx.StatementCache;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small bounded connection pool. Borrowing takes a permit from a semaphore and pops the most
+ * recently returned connection from a lock-free deque, so the hot path never blocks unless the
+ * pool is exhausted. Each pooled connection keeps its own statement cache.
+ */
+public final class ConnectionPool extends ConnectionSource {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final DataSource dataSource;
+    private final PoolOptions options;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final ScheduledFuture<?> eviction;
+    private volatile boolean closed;
+
+    private ConnectionPool(DataSource dataSource, PoolOptions options) {
+        this.dataSource = dataSource;
+        this.options = options;
+        this.permits = new Semaphore(options.maxSize(), true);
+
+        var idleTimeout = options.idleTimeout().toMillis();
+        if (idleTimeout > 0) {
+            var period = Math.max(idleTimeout / 2, 1000);
+            this.eviction = Evictor.scheduler.scheduleWithFixedDelay(
+                    this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.eviction = null;
+        }
+    }
+
+    public static ConnectionPool create(DataSource dataSource) {
+        return create(dataSource, PoolOptions.defaults());
+    }
+
+    public static ConnectionPool create(DataSource dataSource, PoolOptions options) {
+        return new ConnectionPool(dataSource, options);
+    }
+
+    @Override
+    protected StatementCache borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        if (!permits.tryAcquire()) {
+            awaitPermit();
+        }
+
+        try {
+            return take();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void awaitPermit() throws SQLException {
+        var start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(options.maxWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        var waited = System.nanoTime() - start;
+        waits.increment();
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+
+        if (!acquired) {
+            timeouts.increment();
+            throw new SQLTransientConnectionException(
+                    "Timed out after " + options.maxWait().toMillis() + "ms waiting for a connection");
+        }
+    }
+
+    private PooledConnection take() throws SQLException {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            if (isUsable(connection)) {
+                return connection;
+            }
+            discard(connection);
+        }
+
+        created.increment();
+        return new PooledConnection(dataSource.getConnection(), options.statementCacheSize());
+    }
+
+    private boolean isUsable(PooledConnection connection) {
+        if (System.nanoTime() - connection.lastUsed < options.validationInterval().toNanos()) {
+            return true;
+        }
+        try {
+            return connection.connection().isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    protected void giveBack(StatementCache statements) throws SQLException {
+        var connection = (PooledConnection) statements;
+        try {
+            if (closed || connection.connection().isClosed()) {
+                discard(connection);
+                return;
+            }
+            connection.lastUsed = System.nanoTime();
+            idle.offerFirst(connection);
+            idleCount.incrementAndGet();
+            if (closed) {
+                drainIdle();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    void evictIdle() {
+        var now = System.nanoTime();
+        var idleTimeout = options.idleTimeout().toNanos();
+        var iterator = idle.descendingIterator();
+        while (iterator.hasNext() && idleCount.get() > options.minIdle()) {
+            var connection = iterator.next();
+            if (now - connection.lastUsed > idleTimeout && idle.remove(connection)) {
+                idleCount.decrementAndGet();
+                evicted.increment();
+                discard(connection);
+            }
+        }
+    }
+
+    private void drainIdle() {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            discard(connection);
+        }
+    }
+
+    // The connection is being thrown away; there is nothing left to recover from failures.
+    private static void discard(PooledConnection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Its statements are closed with the connection below
+        } finally {
+            try {
+                connection.connection().close();
+            } catch (SQLException ignored) {
+                // Already broken or closed
+            }
+        }
+    }
+
+    public PoolMetrics metrics() {
+        return new PoolMetrics(
+                options.maxSize() - permits.availablePermits(),
+                idleCount.get(),
+                created.sum(),
+                evicted.sum(),
+                waits.sum(),
+                timeouts.sum(),
+                totalWaitNanos.sum(),
+                maxWaitNanos.get());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (eviction != null) {
+            eviction.cancel(false);
+        }
+        drainIdle();
+    }
+
+    private static final class PooledConnection extends StatementCache {
+        private volatile long lastUsed = System.nanoTime();
+
+        private PooledConnection(Connection connection, int statementCacheSize) {
+            super(connection, statementCacheSize);
+        }
+    }
+
+    private static final class Evictor {
+        private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, "dbx-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
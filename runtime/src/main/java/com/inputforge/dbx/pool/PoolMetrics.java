@@ -0,0 +1,78 @@
+package com.inputforge.dbx.pool;
+
+import java.time.Duration;
+
+public final class PoolMetrics {
+    private final int active;
+    private final int idle;
+    private final long created;
+    private final long evicted;
+    private final long waits;
+    private final long timeouts;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+
+    PoolMetrics(int active, int idle, long created, long evicted, long waits, long timeouts,
+                long totalWaitNanos, long maxWaitNanos) {
+        this.active = active;
+        this.idle = idle;
+        this.created = created;
+        this.evicted = evicted;
+        this.waits = waits;
+        this.timeouts = timeouts;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    public int active() {
+        return active;
+    }
+
+    public int idle() {
+        return idle;
+    }
+
+    public long created() {
+        return created;
+    }
+
+    public long evicted() {
+        return evicted;
+    }
+
+    /**
+     * Borrows that could not be served immediately and had to wait for a connection.
+     */
+    public long waits() {
+        return waits;
+    }
+
+    public long timeouts() {
+        return timeouts;
+    }
+
+    public Duration totalWait() {
+        return Duration.ofNanos(totalWaitNanos);
+    }
+
+    public Duration maxWait() {
+        return Duration.ofNanos(maxWaitNanos);
+    }
+
+    public Duration averageWait() {
+        return waits == 0 ? Duration.ZERO : Duration.ofNanos(totalWaitNanos / waits);
+    }
+
+    @Override
+    public String toString() {
+        return "PoolMetrics[" +
+                "active=" + active + ", " +
+                "idle=" + idle + ", " +
+                "created=" + created + ", " +
+                "evicted=" + evicted + ", " +
+                "waits=" + waits + ", " +
+                "timeouts=" + timeouts + ", " +
+                "averageWait=" + averageWait() + ", " +
+                "maxWait=" + maxWait() + ']';
+    }
+}
@@ -0,0 +1,111 @@
+package com.inputforge.dbx.pool;
+
+import java.time.Duration;
+
+public final class PoolOptions {
+    private static final PoolOptions DEFAULTS = new PoolOptions();
+
+    private int maxSize = 10;
+    private int minIdle = 0;
+    private Duration maxWait = Duration.ofSeconds(30);
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private Duration validationInterval = Duration.ofSeconds(5);
+    private int statementCacheSize = 32;
+
+    private PoolOptions() {
+    }
+
+    private PoolOptions(PoolOptions other) {
+        this.maxSize = other.maxSize;
+        this.minIdle = other.minIdle;
+        this.maxWait = other.maxWait;
+        this.idleTimeout = other.idleTimeout;
+        this.validationInterval = other.validationInterval;
+        this.statementCacheSize = other.statementCacheSize;
+    }
+
+    public static PoolOptions defaults() {
+        return DEFAULTS;
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public PoolOptions maxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        var options = new PoolOptions(this);
+        options.maxSize = maxSize;
+        return options;
+    }
+
+    public int minIdle() {
+        return minIdle;
+    }
+
+    /**
+     * Number of idle connections that idle eviction leaves in place.
+     */
+    public PoolOptions minIdle(int minIdle) {
+        if (minIdle < 0) {
+            throw new IllegalArgumentException("Minimum idle count must not be negative");
+        }
+        var options = new PoolOptions(this);
+        options.minIdle = minIdle;
+        return options;
+    }
+
+    public Duration maxWait() {
+        return maxWait;
+    }
+
+    /**
+     * How long a caller waits for a connection before the pool gives up.
+     */
+    public PoolOptions maxWait(Duration maxWait) {
+        var options = new PoolOptions(this);
+        options.maxWait = maxWait;
+        return options;
+    }
+
+    public Duration idleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Idle connections older than this are closed; {@link Duration#ZERO} keeps them forever.
+     */
+    public PoolOptions idleTimeout(Duration idleTimeout) {
+        var options = new PoolOptions(this);
+        options.idleTimeout = idleTimeout;
+        return options;
+    }
+
+    public Duration validationInterval() {
+        return validationInterval;
+    }
+
+    /**
+     * Connections idle for longer than this are checked with {@code isValid} before reuse.
+     */
+    public PoolOptions validationInterval(Duration validationInterval) {
+        var options = new PoolOptions(this);
+        options.validationInterval = validationInterval;
+        return options;
+    }
+
+    public int statementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public PoolOptions statementCacheSize(int statementCacheSize) {
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Statement cache size must not be negative");
+        }
+        var options = new PoolOptions(this);
+        options.statementCacheSize = statementCacheSize;
+        return options;
+    }
+}
@@ -0,0 +1,213 @@
+package com.inputforge.dbx.shard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Runs a query on every shard and merges the results, for DAO methods without a shard key. The
+ * same merges combine the chunks of a long {@code IN} list.
+ */
+public final class ScatterGather {
+    private ScatterGather() {
+    }
+
+    /**
+     * Returns the result of every shard or other part, in order. When {@code parallel}, the first
+     * part runs on the calling thread and the others on the executor; otherwise they all run in
+     * turn on the calling thread, as they must inside a transaction, whose connection is bound to
+     * that thread, or on sources that cannot serve several calls at once.
+     */
+    public static <S, T> List<T> all(List<? extends S> parts, boolean parallel, Executor executor,
+                                     Function<? super S, T> query) {
+        if (parts.size() == 1) {
+            return Collections.singletonList(query.apply(parts.get(0)));
+        }
+        if (!parallel) {
+            var results = new ArrayList<T>(parts.size());
+            for (var part : parts) {
+                results.add(query.apply(part));
+            }
+            return results;
+        }
+
+        var pending = new ArrayList<CompletableFuture<T>>(parts.size() - 1);
+        for (var part : parts.subList(1, parts.size())) {
+            pending.add(CompletableFuture.supplyAsync(() -> query.apply(part), executor));
+        }
+        var results = new ArrayList<T>(parts.size());
+        results.add(query.apply(parts.get(0)));
+        for (var future : pending) {
+            results.add(join(future));
+        }
+        return results;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public static <T> List<T> concat(List<? extends Collection<? extends T>> results) {
+        var size = 0;
+        for (var result : results) {
+            size += result.size();
+        }
+        var merged = new ArrayList<T>(size);
+        results.forEach(merged::addAll);
+        return merged;
+    }
+
+    public static <T> Set<T> union(List<? extends Collection<? extends T>> results) {
+        var merged = new LinkedHashSet<T>();
+        results.forEach(merged::addAll);
+        return merged;
+    }
+
+    /**
+     * Adds the entries of the other results to the first, keeping the first value of each key.
+     */
+    public static <K, V, M extends Map<K, V>> M mergeMaps(List<M> results) {
+        var merged = results.get(0);
+        for (var result : results.subList(1, results.size())) {
+            result.forEach(merged::putIfAbsent);
+        }
+        return merged;
+    }
+
+    /**
+     * Adds the groups of the other results to the first, appending to the group of a key already
+     * present.
+     */
+    public static <K, T, M extends Map<K, List<T>>> M mergeGroups(List<M> results) {
+        var merged = results.get(0);
+        for (var result : results.subList(1, results.size())) {
+            result.forEach((key, group) -> {
+                var existing = merged.get(key);
+                if (existing == null) {
+                    merged.put(key, group);
+                } else {
+                    existing.addAll(group);
+                }
+            });
+        }
+        return merged;
+    }
+
+    /**
+     * Sums counts and sums of the shards, or returns {@code null} if every shard returned
+     * {@code null}.
+     */
+    public static Integer sumInt(List<Integer> results) {
+        Integer sum = null;
+        for (var result : results) {
+            if (result != null) {
+                sum = sum == null ? result : Math.addExact(sum, result);
+            }
+        }
+        return sum;
+    }
+
+    public static Long sumLong(List<Long> results) {
+        Long sum = null;
+        for (var result : results) {
+            if (result != null) {
+                sum = sum == null ? result : Math.addExact(sum, result);
+            }
+        }
+        return sum;
+    }
+
+    public static Double sumDouble(List<Double> results) {
+        Double sum = null;
+        for (var result : results) {
+            if (result != null) {
+                sum = sum == null ? result : sum + result;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns whether any shard returned {@code true}, or {@code null} if every shard returned
+     * {@code null}.
+     */
+    public static Boolean anyTrue(List<Boolean> results) {
+        Boolean any = null;
+        for (var result : results) {
+            if (result != null) {
+                any = (any != null && any) || result;
+            }
+        }
+        return any;
+    }
+
+    /**
+     * Returns whether every shard that returned a value returned {@code true}, or {@code null} if
+     * every shard returned {@code null}.
+     */
+    public static Boolean allTrue(List<Boolean> results) {
+        Boolean all = null;
+        for (var result : results) {
+            if (result != null) {
+                all = (all == null || all) && result;
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Returns the largest non-null result, for {@code max} over all shards.
+     */
+    public static <T extends Comparable<? super T>> T max(List<T> results) {
+        T max = null;
+        for (var result : results) {
+            if (result != null && (max == null || result.compareTo(max) > 0)) {
+                max = result;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the smallest non-null result, for {@code min} over all shards.
+     */
+    public static <T extends Comparable<? super T>> T min(List<T> results) {
+        T min = null;
+        for (var result : results) {
+            if (result != null && (min == null || result.compareTo(min) < 0)) {
+                min = result;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Returns the first shard's non-null result, for lookups of a row that lives on one shard.
+     */
+    public static <T> T firstNonNull(List<T> results) {
+        for (var result : results) {
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+}
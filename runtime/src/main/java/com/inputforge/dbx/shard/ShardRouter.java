@@ -0,0 +1,32 @@
+package com.inputforge.dbx.shard;
+
+import java.util.Objects;
+
+/**
+ * Maps shard keys to shards. Every process must map a key to the same shard, so routing may only
+ * depend on the key's value.
+ */
+@FunctionalInterface
+public interface ShardRouter {
+    /**
+     * Returns the index of the shard holding the key, from {@code 0} to {@code shards - 1}.
+     */
+    int shard(Object key, int shards);
+
+    /**
+     * Spreads keys over the shards by hash code, which must not depend on the JVM, as for numbers
+     * and strings.
+     */
+    static ShardRouter hashing() {
+        return (key, shards) -> Math.floorMod(mix(Objects.hashCode(key)), shards);
+    }
+
+    private static int mix(int hash) {
+        // Murmur3 finalizer, so that keys differing in high bits still spread over few shards
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,107 @@
+package com.inputforge.dbx.shard;
+
+import com.inputforge.dbx.ConnectionSource;
+import com.inputforge.dbx.StatementCache;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Splits a DAO's rows over several sources. Methods with a {@code @ShardKey} parameter run on the
+ * shard the {@link ShardRouter} picks for it; other methods of the DAO run on every shard, in
+ * parallel unless a shard is in a transaction or cannot serve parallel calls, and merge the
+ * results. A transaction spans a single shard, so it is started on
+ * {@code shard(key)} rather than on this source. Closing the source closes every shard.
+ */
+public final class ShardedConnectionSource extends ConnectionSource {
+    private final List<ConnectionSource> shards;
+    private final ShardRouter router;
+
+    private ShardedConnectionSource(List<ConnectionSource> shards, ShardRouter router) {
+        this.shards = shards;
+        this.router = router;
+    }
+
+    public static ShardedConnectionSource create(List<? extends ConnectionSource> shards) {
+        return create(shards, ShardRouter.hashing());
+    }
+
+    public static ShardedConnectionSource create(List<? extends ConnectionSource> shards, ShardRouter router) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        return new ShardedConnectionSource(List.copyOf(shards), router);
+    }
+
+    @Override
+    public ConnectionSource shard(Object key) {
+        var shard = router.shard(key, shards.size());
+        if (shard < 0 || shard >= shards.size()) {
+            throw new IllegalStateException("Shard router returned " + shard + " for " + shards.size() + " shards");
+        }
+        return shards.get(shard);
+    }
+
+    @Override
+    public List<ConnectionSource> shards() {
+        return shards;
+    }
+
+    /**
+     * Returns whether the calling thread is inside a transaction on any shard.
+     */
+    @Override
+    public boolean isInTransaction() {
+        for (var shard : shards) {
+            if (shard.isInTransaction()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether every shard can serve calls from other threads than the caller's.
+     */
+    @Override
+    public boolean supportsParallelCalls() {
+        for (var shard : shards) {
+            if (!shard.supportsParallelCalls()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the executor of the first shard that orders asynchronous calls, such as a single
+     * connection, so that calls reaching every shard are ordered as well.
+     */
+    @Override
+    public Executor executor(Executor executor) {
+        for (var shard : shards) {
+            var shardExecutor = shard.executor(executor);
+            if (shardExecutor != executor) {
+                return shardExecutor;
+            }
+        }
+        return executor;
+    }
+
+    @Override
+    protected StatementCache borrow() {
+        throw new IllegalStateException("Calls on a sharded source must run on one of its shards; "
+                + "use a DAO with a @ShardKey or shard(key)");
+    }
+
+    @Override
+    protected void giveBack(StatementCache statements) {
+        throw new IllegalStateException("Sharded sources do not lend connections");
+    }
+
+    @Override
+    public void close() throws SQLException {
+        closeAll(shards);
+    }
+}
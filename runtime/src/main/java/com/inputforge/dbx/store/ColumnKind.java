@@ -0,0 +1,69 @@
+package com.inputforge.dbx.store;
+
+import java.sql.Types;
+
+/**
+ * How a column is stored in a row. Every column has a slot of fixed width at the same place in
+ * each row; variable-length values keep their offset and length there and their bytes after the
+ * slots.
+ */
+enum ColumnKind {
+    BOOLEAN(1),
+    INT(4),
+    LONG(8),
+    DOUBLE(8),
+    // Days since the epoch
+    DATE(8),
+    // Nanoseconds of the day
+    TIME(8),
+    // Seconds since the epoch and nanoseconds
+    TIMESTAMP(12),
+    // Text of the BigDecimal
+    DECIMAL(8),
+    TEXT(8),
+    BYTES(8);
+
+    final int width;
+
+    ColumnKind(int width) {
+        this.width = width;
+    }
+
+    static ColumnKind of(int sqlType) {
+        switch (sqlType) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return BOOLEAN;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return INT;
+            case Types.BIGINT:
+                return LONG;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return DOUBLE;
+            case Types.DATE:
+                return DATE;
+            case Types.TIME:
+                return TIME;
+            case Types.TIMESTAMP:
+                return TIMESTAMP;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return DECIMAL;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return BYTES;
+            default:
+                return TEXT;
+        }
+    }
+
+    boolean isVariable() {
+        return this == DECIMAL || this == TEXT || this == BYTES;
+    }
+}
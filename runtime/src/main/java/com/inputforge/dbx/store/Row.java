@@ -0,0 +1,177 @@
+package com.inputforge.dbx.store;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * View of one row of a {@link RowList}, decoding a column each time it is read. Columns are
+ * numbered from 1 as in JDBC, and SQL {@code NULL} reads as {@code 0}, {@code false} or
+ * {@code null}.
+ */
+public final class Row {
+    private final RowList rows;
+    private final ByteBuffer segment;
+    private final int offset;
+
+    Row(RowList rows, ByteBuffer segment, int offset) {
+        this.rows = rows;
+        this.segment = segment;
+        this.offset = offset;
+    }
+
+    public boolean isNull(int column) {
+        var index = column - 1;
+        return (segment.get(offset + (index >> 3)) & (1 << (index & 7))) != 0;
+    }
+
+    public boolean getBoolean(int column) {
+        return segment.get(slot(column, ColumnKind.BOOLEAN)) != 0;
+    }
+
+    public int getInt(int column) {
+        if (kind(column) == ColumnKind.INT) {
+            return segment.getInt(slot(column));
+        }
+        return Math.toIntExact(getLong(column));
+    }
+
+    public long getLong(int column) {
+        switch (kind(column)) {
+            case INT:
+                return segment.getInt(slot(column));
+            case DECIMAL:
+                return isNull(column) ? 0 : getBigDecimal(column).longValueExact();
+            default:
+                return segment.getLong(slot(column, ColumnKind.LONG));
+        }
+    }
+
+    public double getDouble(int column) {
+        switch (kind(column)) {
+            case INT:
+                return segment.getInt(slot(column));
+            case LONG:
+                return segment.getLong(slot(column));
+            case DECIMAL:
+                return isNull(column) ? 0 : getBigDecimal(column).doubleValue();
+            default:
+                return segment.getDouble(slot(column, ColumnKind.DOUBLE));
+        }
+    }
+
+    public BigDecimal getBigDecimal(int column) {
+        if (isNull(column)) {
+            return null;
+        }
+        switch (kind(column)) {
+            case INT:
+            case LONG:
+                return BigDecimal.valueOf(getLong(column));
+            case DOUBLE:
+                return BigDecimal.valueOf(getDouble(column));
+            default:
+                return new BigDecimal(new String(variable(column, ColumnKind.DECIMAL), StandardCharsets.US_ASCII));
+        }
+    }
+
+    /**
+     * Returns text columns as stored and other columns converted to text.
+     */
+    public String getString(int column) {
+        if (kind(column) != ColumnKind.TEXT) {
+            var value = getObject(column);
+            return value != null ? value.toString() : null;
+        }
+        return isNull(column) ? null : new String(variable(column, ColumnKind.TEXT), StandardCharsets.UTF_8);
+    }
+
+    public byte[] getBytes(int column) {
+        return isNull(column) ? null : variable(column, ColumnKind.BYTES);
+    }
+
+    public LocalDate getDate(int column) {
+        return isNull(column) ? null : LocalDate.ofEpochDay(segment.getLong(slot(column, ColumnKind.DATE)));
+    }
+
+    public LocalTime getTime(int column) {
+        return isNull(column) ? null : LocalTime.ofNanoOfDay(segment.getLong(slot(column, ColumnKind.TIME)));
+    }
+
+    public Instant getInstant(int column) {
+        if (isNull(column)) {
+            return null;
+        }
+        var slot = slot(column, ColumnKind.TIMESTAMP);
+        return Instant.ofEpochSecond(segment.getLong(slot), segment.getInt(slot + 8));
+    }
+
+    /**
+     * Returns the column as the Java type it is stored as, or {@code null}.
+     */
+    public Object getObject(int column) {
+        if (isNull(column)) {
+            return null;
+        }
+        switch (kind(column)) {
+            case BOOLEAN:
+                return getBoolean(column);
+            case INT:
+                return getInt(column);
+            case LONG:
+                return getLong(column);
+            case DOUBLE:
+                return getDouble(column);
+            case DATE:
+                return getDate(column);
+            case TIME:
+                return getTime(column);
+            case TIMESTAMP:
+                return getInstant(column);
+            case DECIMAL:
+                return getBigDecimal(column);
+            case BYTES:
+                return getBytes(column);
+            default:
+                return getString(column);
+        }
+    }
+
+    private ColumnKind kind(int column) {
+        return rows.kinds[column - 1];
+    }
+
+    private int slot(int column) {
+        return offset + rows.slots[column - 1];
+    }
+
+    private int slot(int column, ColumnKind expected) {
+        if (kind(column) != expected) {
+            throw new IllegalArgumentException("Column " + rows.labels[column - 1] + " holds "
+                    + kind(column) + " values, not " + expected);
+        }
+        return slot(column);
+    }
+
+    private byte[] variable(int column, ColumnKind expected) {
+        var slot = slot(column, expected);
+        var value = new byte[segment.getInt(slot + 4)];
+        segment.duplicate().position(offset + segment.getInt(slot)).get(value);
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        var text = new StringBuilder("Row{");
+        for (int column = 1; column <= rows.columnCount(); column++) {
+            if (column > 1) {
+                text.append(", ");
+            }
+            text.append(rows.columnLabel(column)).append('=').append(getObject(column));
+        }
+        return text.append('}').toString();
+    }
+}
@@ -0,0 +1,250 @@
+package com.inputforge.dbx.store;
+
+import com.inputforge.dbx.collection.LongList;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Rows of a result set kept in a compact binary form outside the heap: in direct memory up to a
+ * budget, then in a memory-mapped temporary file. The heap holds only the address of each row.
+ * Elements are lightweight views decoding a column when it is read, so a large report does not
+ * turn into millions of objects. Closing the list deletes the spill file; rows must not be read
+ * afterwards.
+ */
+public final class RowList extends AbstractList<Row> implements RandomAccess, AutoCloseable {
+    final String[] labels;
+    final ColumnKind[] kinds;
+    // Position of each column's slot within a row, after the null bits
+    final int[] slots;
+    private final Segments segments;
+    private final LongList addresses;
+    private volatile boolean closed;
+
+    private RowList(String[] labels, ColumnKind[] kinds, int[] slots, Segments segments, LongList addresses) {
+        this.labels = labels;
+        this.kinds = kinds;
+        this.slots = slots;
+        this.segments = segments;
+        this.addresses = addresses;
+    }
+
+    /**
+     * Reads the remaining rows of the result set.
+     *
+     * @param expectedRows number of rows to size the index for, or {@code 0}
+     * @param memoryBudget bytes of direct memory to fill before spilling
+     * @param spillDirectory directory of the spill file, or {@code null} for the system default
+     * @throws UncheckedIOException if rows cannot be spilled
+     */
+    public static RowList read(ResultSet resultSet, int expectedRows, long memoryBudget, Path spillDirectory)
+            throws SQLException {
+        var metaData = resultSet.getMetaData();
+        var columns = metaData.getColumnCount();
+        var labels = new String[columns];
+        var kinds = new ColumnKind[columns];
+        var slots = new int[columns];
+        var fixedSize = (columns + 7) >> 3;
+        for (int i = 0; i < columns; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+            kinds[i] = ColumnKind.of(metaData.getColumnType(i + 1));
+            slots[i] = fixedSize;
+            fixedSize += kinds[i].width;
+        }
+
+        var segments = new Segments(memoryBudget, spillDirectory);
+        var addresses = new LongList(expectedRows);
+        var encoder = new Encoder(kinds, slots, fixedSize);
+        try {
+            while (resultSet.next()) {
+                addresses.add(segments.append(encoder.encode(resultSet)));
+            }
+        } catch (IOException e) {
+            closeQuietly(segments, e);
+            throw new UncheckedIOException("Cannot spill rows to disk", e);
+        } catch (SQLException | RuntimeException | Error e) {
+            closeQuietly(segments, e);
+            throw e;
+        }
+        return new RowList(labels, kinds, slots, segments, addresses);
+    }
+
+    private static void closeQuietly(Segments segments, Throwable failure) {
+        try {
+            segments.close();
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    @Override
+    public Row get(int index) {
+        if (closed) {
+            throw new IllegalStateException("Row list is closed");
+        }
+        var address = addresses.get(index);
+        return new Row(this, segments.segment(address), Segments.offset(address));
+    }
+
+    @Override
+    public int size() {
+        return addresses.size();
+    }
+
+    public int columnCount() {
+        return labels.length;
+    }
+
+    /**
+     * Returns the label of a column, numbered from 1 as in JDBC.
+     */
+    public String columnLabel(int column) {
+        return labels[column - 1];
+    }
+
+    /**
+     * Returns the number of the column with the given label, ignoring case.
+     */
+    public int columnIndex(String label) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equalsIgnoreCase(label)) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("No column " + label + " in " + Arrays.toString(labels));
+    }
+
+    /**
+     * Returns whether rows went past the memory budget into a spill file.
+     */
+    public boolean isSpilled() {
+        return segments.spilledBytes() > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        segments.close();
+    }
+
+    /**
+     * Encodes rows into a reusable heap buffer before they are copied to their segment.
+     */
+    private static final class Encoder {
+        private final ColumnKind[] kinds;
+        private final int[] slots;
+        private final int fixedSize;
+        private ByteBuffer row;
+
+        private Encoder(ColumnKind[] kinds, int[] slots, int fixedSize) {
+            this.kinds = kinds;
+            this.slots = slots;
+            this.fixedSize = fixedSize;
+            this.row = ByteBuffer.allocate(Math.max(256, fixedSize * 2));
+        }
+
+        private ByteBuffer encode(ResultSet resultSet) throws SQLException {
+            row.clear();
+            Arrays.fill(row.array(), 0, fixedSize, (byte) 0);
+            row.position(fixedSize);
+            for (int i = 0; i < kinds.length; i++) {
+                var column = i + 1;
+                var slot = slots[i];
+                switch (kinds[i]) {
+                    case BOOLEAN:
+                        var booleanValue = resultSet.getBoolean(column);
+                        if (!isNull(resultSet, i)) {
+                            row.put(slot, (byte) (booleanValue ? 1 : 0));
+                        }
+                        break;
+                    case INT:
+                        var intValue = resultSet.getInt(column);
+                        if (!isNull(resultSet, i)) {
+                            row.putInt(slot, intValue);
+                        }
+                        break;
+                    case LONG:
+                        var longValue = resultSet.getLong(column);
+                        if (!isNull(resultSet, i)) {
+                            row.putLong(slot, longValue);
+                        }
+                        break;
+                    case DOUBLE:
+                        var doubleValue = resultSet.getDouble(column);
+                        if (!isNull(resultSet, i)) {
+                            row.putDouble(slot, doubleValue);
+                        }
+                        break;
+                    case DATE:
+                        var date = resultSet.getDate(column);
+                        if (!isNull(resultSet, i)) {
+                            row.putLong(slot, date.toLocalDate().toEpochDay());
+                        }
+                        break;
+                    case TIME:
+                        var time = resultSet.getTime(column);
+                        if (!isNull(resultSet, i)) {
+                            row.putLong(slot, time.toLocalTime().toNanoOfDay());
+                        }
+                        break;
+                    case TIMESTAMP:
+                        var timestamp = resultSet.getTimestamp(column);
+                        if (!isNull(resultSet, i)) {
+                            var instant = timestamp.toInstant();
+                            row.putLong(slot, instant.getEpochSecond());
+                            row.putInt(slot + 8, instant.getNano());
+                        }
+                        break;
+                    case DECIMAL:
+                        var decimal = resultSet.getBigDecimal(column);
+                        if (!isNull(resultSet, i)) {
+                            putVariable(slot, decimal.toString().getBytes(StandardCharsets.US_ASCII));
+                        }
+                        break;
+                    case TEXT:
+                        var text = resultSet.getString(column);
+                        if (!isNull(resultSet, i)) {
+                            putVariable(slot, text.getBytes(StandardCharsets.UTF_8));
+                        }
+                        break;
+                    case BYTES:
+                        var bytes = resultSet.getBytes(column);
+                        if (!isNull(resultSet, i)) {
+                            putVariable(slot, bytes);
+                        }
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown column kind " + kinds[i]);
+                }
+            }
+            return row.flip();
+        }
+
+        private boolean isNull(ResultSet resultSet, int index) throws SQLException {
+            if (!resultSet.wasNull()) {
+                return false;
+            }
+            row.array()[index >> 3] |= (byte) (1 << (index & 7));
+            return true;
+        }
+
+        private void putVariable(int slot, byte[] value) {
+            if (row.remaining() < value.length) {
+                var grown = ByteBuffer.allocate(Math.max(row.capacity() * 2, row.position() + value.length));
+                grown.put(row.array(), 0, row.position());
+                row = grown;
+            }
+            row.putInt(slot, row.position());
+            row.putInt(slot + 4, value.length);
+            row.put(value);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.inputforge.dbx.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only storage of encoded rows: direct buffers, growing from a few kilobytes, until the
+ * memory budget is used, then regions of a memory-mapped temporary file. A row is addressed by
+ * its segment in the high and its offset in the low half of a long, and never spans segments.
+ */
+final class Segments {
+    private static final int FIRST_DIRECT_SEGMENT = 8 << 10;
+    private static final int MAX_DIRECT_SEGMENT = 1 << 20;
+    private static final int MAPPED_SEGMENT = 64 << 20;
+
+    private final long memoryBudget;
+    private final Path spillDirectory;
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private ByteBuffer current;
+    private int nextDirectSize = FIRST_DIRECT_SEGMENT;
+    private long directBytes;
+    private FileChannel spill;
+    private long spillBytes;
+
+    Segments(long memoryBudget, Path spillDirectory) {
+        this.memoryBudget = memoryBudget;
+        this.spillDirectory = spillDirectory;
+    }
+
+    long append(ByteBuffer row) throws IOException {
+        if (current == null || current.remaining() < row.remaining()) {
+            current = allocate(row.remaining());
+            segments.add(current);
+        }
+        var address = ((long) (segments.size() - 1) << 32) | current.position();
+        current.put(row);
+        return address;
+    }
+
+    private ByteBuffer allocate(int minSize) throws IOException {
+        var directSize = Math.max(nextDirectSize, minSize);
+        if (directBytes + directSize <= memoryBudget) {
+            directBytes += directSize;
+            nextDirectSize = Math.min(nextDirectSize << 1, MAX_DIRECT_SEGMENT);
+            return ByteBuffer.allocateDirect(directSize);
+        }
+
+        if (spill == null) {
+            var file = spillDirectory != null
+                    ? Files.createTempFile(spillDirectory, "dbx-rows", ".tmp")
+                    : Files.createTempFile("dbx-rows", ".tmp");
+            // Deleted when closed, or at once where the platform allows; mapped regions stay readable
+            spill = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        var size = Math.max(MAPPED_SEGMENT, minSize);
+        var segment = spill.map(FileChannel.MapMode.READ_WRITE, spillBytes, size);
+        spillBytes += size;
+        return segment;
+    }
+
+    ByteBuffer segment(long address) {
+        return segments.get((int) (address >>> 32));
+    }
+
+    static int offset(long address) {
+        return (int) address;
+    }
+
+    long directBytes() {
+        return directBytes;
+    }
+
+    long spilledBytes() {
+        return spillBytes;
+    }
+
+    /**
+     * Drops the buffers, leaving them to be freed once no row refers to them, and deletes the
+     * spill file.
+     */
+    void close() throws IOException {
+        segments.clear();
+        current = null;
+        if (spill != null) {
+            spill.close();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.inputforge.dbx;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public final class DaoExecutors {
+    private DaoExecutors() {
+    }
+
+    public static Executor defaultExecutor() {
+        return Default.executor;
+    }
+
+    public static ExecutorService newThreadPerTaskExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dbx-async-", 1).factory());
+    }
+
+    public static boolean usesVirtualThreads() {
+        return true;
+    }
+
+    private static final class Default {
+        private static final ExecutorService executor = newThreadPerTaskExecutor();
+    }
+}
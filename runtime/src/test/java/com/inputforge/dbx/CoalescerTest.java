@@ -0,0 +1,93 @@
+package com.inputforge.dbx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoalescerTest {
+    // Long enough that only a full batch is ever loaded during a test
+    private static final long WINDOW = TimeUnit.HOURS.toNanos(1);
+
+    private final List<List<Long>> batches = new ArrayList<>();
+
+    @Test
+    void mapsEachKeyToItsRow() {
+        var coalescer = new Coalescer<Long, String>(3, WINDOW, keys -> {
+            batches.add(keys);
+            return Map.of(1L, "one", 3L, "three");
+        }, Runnable::run);
+
+        var one = coalescer.load(1L);
+        var two = coalescer.load(2L);
+        var three = coalescer.load(3L);
+
+        assertEquals(List.of(List.of(1L, 2L, 3L)), batches);
+        assertEquals("one", one.join());
+        assertNull(two.join());
+        assertEquals("three", three.join());
+    }
+
+    @Test
+    void sharesTheFutureOfARepeatedKey() {
+        var coalescer = new Coalescer<Long, String>(2, WINDOW, keys -> {
+            batches.add(keys);
+            return Map.of(1L, "one", 2L, "two");
+        }, Runnable::run);
+
+        var first = coalescer.load(1L);
+        var second = coalescer.load(1L);
+        assertSame(first, second);
+        assertFalse(first.isDone());
+
+        coalescer.load(2L);
+        assertEquals(List.of(List.of(1L, 2L)), batches);
+        assertEquals("one", first.join());
+    }
+
+    @Test
+    void startsANewBatchOnceOneIsFull() {
+        var coalescer = new Coalescer<Long, String>(1, WINDOW, keys -> {
+            batches.add(keys);
+            return Map.of();
+        }, Runnable::run);
+
+        coalescer.load(1L);
+        coalescer.load(2L);
+
+        assertEquals(List.of(List.of(1L), List.of(2L)), batches);
+    }
+
+    @Test
+    void failsEveryCallerOfAFailedBatch() {
+        var failure = new IllegalStateException("boom");
+        var coalescer = new Coalescer<Long, String>(2, WINDOW, keys -> {
+            throw failure;
+        }, Runnable::run);
+
+        var first = coalescer.load(1L);
+        var thrown = assertThrows(IllegalStateException.class, () -> coalescer.get(2L));
+
+        assertSame(failure, thrown);
+        assertTrue(first.isCompletedExceptionally());
+    }
+
+    @Test
+    void failsCallersWhenTheExecutorRejectsTheBatch() {
+        var coalescer = new Coalescer<Long, String>(1, WINDOW, keys -> Map.of(), task -> {
+            throw new RejectedExecutionException("shut down");
+        });
+
+        assertThrows(RejectedExecutionException.class, () -> coalescer.get(1L));
+    }
+}
@@ -0,0 +1,84 @@
+package com.inputforge.dbx;
+
+import com.inputforge.dbx.metrics.DaoMetrics;
+import com.inputforge.dbx.metrics.QueryId;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HedgerTest {
+    private static final QueryId QUERY = new QueryId("HedgerTest", "find", "SELECT 1");
+    private static final Executor NEW_THREAD = task -> new Thread(task).start();
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Test
+    void returnsTheHedgeWhenTheFirstAttemptStalls() {
+        // Hedges immediately, with a budget of one hedge per call
+        var hedger = new Hedger<String>(QUERY, DaoMetrics.disabled(), 1, 95, 0, 1.0);
+
+        var result = hedger.execute(ConnectionSource.of(new JdbcDataSource()), NEW_THREAD, attempt -> {
+            if (attempts.incrementAndGet() > 1) {
+                return "hedge";
+            }
+            // Stalls until the hedge wins and cancels it
+            while (!attempt.isCancelled()) {
+                Thread.onSpinWait();
+            }
+            throw new IllegalStateException("cancelled");
+        });
+
+        assertEquals("hedge", result);
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void failsOnceBothAttemptsFailed() {
+        var hedger = new Hedger<String>(QUERY, DaoMetrics.disabled(), 1, 95, 0, 1.0);
+        var hedgeFailed = new CountDownLatch(1);
+
+        var thrown = assertThrows(IllegalStateException.class,
+                () -> hedger.execute(ConnectionSource.of(new JdbcDataSource()), NEW_THREAD, attempt -> {
+                    if (attempts.incrementAndGet() > 1) {
+                        hedgeFailed.countDown();
+                        throw new IllegalStateException("hedge");
+                    }
+                    try {
+                        hedgeFailed.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    throw new IllegalStateException("first");
+                }));
+
+        // Whichever failed first is thrown, with the other suppressed
+        var other = thrown.getSuppressed()[0];
+        assertEquals(Set.of("first", "hedge"), Set.of(thrown.getMessage(), other.getMessage()));
+    }
+
+    @Test
+    void neverHedgesCallsOnASingleConnection() throws SQLException {
+        var hedger = new Hedger<String>(QUERY, DaoMetrics.disabled(), 1, 95, 0, 1.0);
+
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:");
+        try (var connection = dataSource.getConnection()) {
+            var connections = ConnectionSource.of(connection, DaoOptions.defaults());
+            var result = hedger.execute(connections, NEW_THREAD, attempt -> {
+                attempts.incrementAndGet();
+                return "only";
+            });
+
+            assertEquals("only", result);
+            assertEquals(1, attempts.get());
+        }
+    }
+}
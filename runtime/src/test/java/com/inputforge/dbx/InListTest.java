@@ -0,0 +1,87 @@
+package com.inputforge.dbx;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InListTest {
+    private Connection connection;
+    private TypedValuesDao dao;
+
+    @BeforeEach
+    void createTable() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:");
+        try (var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE typed_values (id BIGINT PRIMARY KEY, amount INT, ratio DOUBLE PRECISION, "
+                    + "active BOOLEAN, label VARCHAR(50), price DECIMAL(10, 2), created_at TIMESTAMP)");
+            statement.execute("INSERT INTO typed_values (id, label) VALUES (1, 'one'), (2, 'two'), (3, 'three'), "
+                    + "(4, 'four'), (5, 'five')");
+        }
+        dao = DaoFactory.create(TypedValuesDao.class, connection, DaoOptions.defaults().inListChunkSize(2));
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void padsListsToPowersOfTwo() {
+        assertEquals(1, InList.paddedSize(0));
+        assertEquals(1, InList.paddedSize(1));
+        assertEquals(4, InList.paddedSize(3));
+        assertEquals(8, InList.paddedSize(5));
+        assertEquals(1000, InList.paddedSize(600, 1000));
+
+        var inList = new InList("SELECT * FROM t WHERE id IN (", ")");
+        assertEquals("SELECT * FROM t WHERE id IN (?, ?, ?, ?)", inList.sql(3));
+        assertSame(inList.sql(3), inList.sql(4));
+        assertEquals("SELECT * FROM t WHERE id IN (?, ?, ?, ?, ?, ?)", inList.sql(5, 6));
+    }
+
+    @Test
+    void runsChunksInOrder() {
+        var seen = new ArrayList<List<Integer>>();
+        var sizes = InList.chunks(List.of(1, 2, 3, 4, 5), 2, false, Runnable::run, chunk -> {
+            seen.add(List.copyOf(chunk));
+            return chunk.size();
+        });
+
+        assertEquals(List.of(List.of(1, 2), List.of(3, 4), List.of(5)), seen);
+        assertEquals(List.of(2, 2, 1), sizes);
+        assertEquals(List.of(), InList.chunks(List.of(), 2, false, Runnable::run, chunk -> chunk.size()));
+    }
+
+    @Test
+    void mergesTheResultsOfChunks() {
+        var labels = dao.getLabels(List.of(1L, 2L, 3L, 5L, 9L));
+
+        assertEquals(Set.of("one", "two", "three", "five"), new HashSet<>(labels));
+        assertEquals(4, labels.size());
+        assertEquals(4, dao.countIn(Set.of(1L, 2L, 3L, 5L, 9L)));
+    }
+
+    @Test
+    void readsNothingForAnEmptyCollection() {
+        assertEquals(List.of(), dao.getLabels(List.of()));
+        assertEquals(0, dao.countIn(List.of()));
+    }
+
+    @Test
+    void refusesAnEmptyNotInList() {
+        assertEquals(2, dao.countNotIn(List.of(1L, 2L, 3L)));
+        assertThrows(IllegalArgumentException.class, () -> dao.countNotIn(List.of()));
+    }
+}
@@ -0,0 +1,96 @@
+package com.inputforge.dbx;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReplicaRoutingSourceTest {
+    private Connection primary;
+    private Connection replica;
+    private ReplicaRoutingSource connections;
+    private TypedValuesDao dao;
+
+    @BeforeEach
+    void createDatabases() throws SQLException {
+        var primaryData = dataSource("primary");
+        var replicaData = dataSource("replica");
+        // Held open for the whole test, since an in-memory database closes with its last connection
+        primary = primaryData.getConnection();
+        replica = replicaData.getConnection();
+        insertLabel(primary, "primary");
+        insertLabel(replica, "replica");
+
+        connections = ReplicaRoutingSource.create(ConnectionSource.of(primaryData),
+                List.of(ConnectionSource.of(replicaData)));
+        dao = DaoFactory.create(TypedValuesDao.class, connections);
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connections.close();
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    void readsGoToTheReplica() {
+        assertEquals("replica", dao.getLabel(1));
+        assertEquals("replica", dao.getLabel(1));
+        assertArrayEquals(new int[]{0}, connections.outstanding());
+    }
+
+    @Test
+    void writesGoToThePrimary() throws SQLException {
+        dao.insert(2, 2, null, null, "written", null, null);
+
+        assertEquals(1, count(primary, "written"));
+        assertEquals(0, count(replica, "written"));
+    }
+
+    @Test
+    void transactionsStayOnThePrimary() throws SQLException {
+        var labels = connections.inTransaction(() -> {
+            var before = dao.getLabel(1);
+            dao.insert(2, 2, null, null, "written", null, null);
+            return before + "," + dao.getLabel(2);
+        });
+
+        assertEquals("primary,written", labels);
+        assertEquals(1, count(primary, "written"));
+        assertEquals(0, count(replica, "written"));
+        assertEquals("replica", dao.getLabel(1));
+    }
+
+    private static JdbcDataSource dataSource(String name) {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + UUID.randomUUID());
+        return dataSource;
+    }
+
+    private static void insertLabel(Connection connection, String label) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE typed_values (id BIGINT PRIMARY KEY, amount INT, ratio DOUBLE PRECISION, "
+                    + "active BOOLEAN, label VARCHAR(50), price DECIMAL(10, 2), created_at TIMESTAMP)");
+            statement.execute("INSERT INTO typed_values (id, label) VALUES (1, '" + label + "')");
+        }
+    }
+
+    private static int count(Connection connection, String label) throws SQLException {
+        try (var statement = connection.prepareStatement("SELECT count(*) FROM typed_values WHERE label = ?")) {
+            statement.setString(1, label);
+            try (var resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+}
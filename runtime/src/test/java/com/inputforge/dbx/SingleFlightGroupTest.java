@@ -0,0 +1,85 @@
+package com.inputforge.dbx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightGroupTest {
+    private final SingleFlightGroup<String, String> group = new SingleFlightGroup<>();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @Test
+    void sharesTheResultOfACallInFlight() throws Exception {
+        var follower = new CompletableFuture<String>();
+        var result = group.execute("key", () -> {
+            runs.incrementAndGet();
+            joinWhileRunning(() -> group.execute("key", this::runAgain), follower);
+            return "shared";
+        });
+
+        assertEquals("shared", result);
+        assertEquals("shared", follower.get());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void sharesTheFailureOfACallInFlight() throws Exception {
+        var failure = new IllegalStateException("boom");
+        var follower = new CompletableFuture<String>();
+        var thrown = assertThrows(IllegalStateException.class, () -> group.execute("key", () -> {
+            joinWhileRunning(() -> group.execute("key", this::runAgain), follower);
+            throw failure;
+        }));
+
+        assertSame(failure, thrown);
+        assertSame(failure, assertThrows(Exception.class, follower::get).getCause());
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void runsDifferentKeysSeparately() {
+        group.execute("first", () -> {
+            runs.incrementAndGet();
+            return group.execute("second", this::runAgain);
+        });
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void runsAgainOnceTheCallFinished() {
+        group.execute("key", this::runAgain);
+        group.execute("key", this::runAgain);
+        group.execute(null, this::runAgain);
+
+        assertEquals(3, runs.get());
+    }
+
+    private String runAgain() {
+        runs.incrementAndGet();
+        return "again";
+    }
+
+    /**
+     * Starts the call on another thread and returns once it waits for the call in flight.
+     */
+    private static void joinWhileRunning(Supplier<String> call, CompletableFuture<String> result) {
+        var thread = new Thread(() -> {
+            try {
+                result.complete(call.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        thread.start();
+        while (thread.getState() != Thread.State.WAITING && !result.isDone()) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.inputforge.dbx;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Dao
+public interface TypedValuesDao {
+
+    @Query("INSERT INTO typed_values (id, amount, ratio, active, label, price, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)")
+    int insert(long id, Integer amount, Double ratio, Boolean active, String label, BigDecimal price,
+               Instant createdAt);
+
+    @Query("SELECT amount FROM typed_values WHERE id = ?")
+    Integer getAmount(long id);
+
+    @Query("SELECT amount FROM typed_values WHERE id = ?")
+    int getAmountOrZero(long id);
+
+    @Query("SELECT ratio FROM typed_values WHERE id = ?")
+    Double getRatio(long id);
+
+    @Query("SELECT active FROM typed_values WHERE id = ?")
+    Boolean getActive(long id);
+
+    @Query("SELECT label FROM typed_values WHERE id = ?")
+    String getLabel(long id);
+
+    @Query("SELECT price FROM typed_values WHERE id = ?")
+    BigDecimal getPrice(long id);
+
+    @Query("SELECT created_at FROM typed_values WHERE id = ?")
+    Instant getCreatedAt(long id);
+
+    @Query("SELECT count(*) FROM typed_values WHERE amount IS NULL AND label = ?")
+    long countWithoutAmount(String label);
+
+    @Query("SELECT label FROM typed_values ORDER BY id")
+    Stream<String> streamLabels();
+
+    @Query("SELECT label FROM typed_values WHERE id IN (?)")
+    List<String> getLabels(Collection<Long> ids);
+
+    @Query("SELECT count(*) FROM typed_values WHERE id IN (?)")
+    long countIn(Collection<Long> ids);
+
+    @Query("SELECT count(*) FROM typed_values WHERE id NOT IN (?)")
+    long countNotIn(Collection<Long> ids);
+}
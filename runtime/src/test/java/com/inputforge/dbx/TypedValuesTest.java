@@ -0,0 +1,135 @@
+package com.inputforge.dbx;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TypedValuesTest {
+    private static final Instant CREATED_AT = Instant.parse("2024-01-02T03:04:05Z");
+    private static final int CALLS = 10_000;
+
+    private Connection connection;
+    private TypedValuesDao dao;
+
+    @BeforeEach
+    void createTable() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:");
+        try (var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE typed_values (id BIGINT PRIMARY KEY, amount INT, ratio DOUBLE PRECISION, "
+                    + "active BOOLEAN, label VARCHAR(50), price DECIMAL(10, 2), created_at TIMESTAMP)");
+        }
+        dao = DaoFactory.create(TypedValuesDao.class, connection);
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void bindsAndReadsTypedValues() {
+        assertEquals(1, dao.insert(1, 42, 0.5, true, "one", new BigDecimal("9.99"), CREATED_AT));
+
+        assertEquals(42, dao.getAmount(1));
+        assertEquals(42, dao.getAmountOrZero(1));
+        assertEquals(0.5, dao.getRatio(1));
+        assertTrue(dao.getActive(1));
+        assertEquals("one", dao.getLabel(1));
+        assertEquals(new BigDecimal("9.99"), dao.getPrice(1));
+        assertEquals(CREATED_AT, dao.getCreatedAt(1));
+    }
+
+    @Test
+    void bindsAndReadsNulls() {
+        dao.insert(2, null, null, null, "two", null, null);
+
+        assertEquals(1, dao.countWithoutAmount("two"));
+        assertNull(dao.getAmount(2));
+        assertEquals(0, dao.getAmountOrZero(2));
+        assertNull(dao.getRatio(2));
+        assertNull(dao.getActive(2));
+        assertNull(dao.getPrice(2));
+        assertNull(dao.getCreatedAt(2));
+    }
+
+    @Test
+    void keepsZeroAndFalseApartFromNull() {
+        dao.insert(3, 0, 0.0, false, "three", BigDecimal.ZERO.setScale(2), null);
+
+        assertEquals(0, dao.getAmount(3));
+        assertEquals(0.0, dao.getRatio(3));
+        assertFalse(dao.getActive(3));
+        assertEquals(0, dao.countWithoutAmount("three"));
+    }
+
+    @Test
+    void nullableColumnsReadNullAsNull() throws SQLException {
+        try (var statement = connection.createStatement();
+             var resultSet = statement.executeQuery("SELECT CAST(NULL AS BIGINT), CAST(7 AS BIGINT), "
+                     + "CAST(NULL AS INT), CAST(NULL AS DOUBLE PRECISION), CAST(NULL AS BOOLEAN), "
+                     + "CAST(NULL AS TIMESTAMP)")) {
+            assertTrue(resultSet.next());
+            assertNull(NullableColumns.getLong(resultSet, 1));
+            assertEquals(7L, NullableColumns.getLong(resultSet, 2));
+            assertNull(NullableColumns.getInt(resultSet, 3));
+            assertNull(NullableColumns.getDouble(resultSet, 4));
+            assertNull(NullableColumns.getBoolean(resultSet, 5));
+            assertNull(NullableColumns.getInstant(resultSet, 6));
+        }
+    }
+
+    @Test
+    void primitiveCallsAllocateNoMoreThanTheDriver() throws SQLException {
+        dao.insert(4, 42, null, null, "four", null, null);
+
+        try (var statement = connection.prepareStatement("SELECT amount FROM typed_values WHERE id = ?")) {
+            var driverBytes = Long.MAX_VALUE;
+            var daoBytes = Long.MAX_VALUE;
+            // The fewest bytes of several rounds, once both loops have been compiled
+            for (var round = 0; round < 5; round++) {
+                driverBytes = Math.min(driverBytes, allocatedPerCall(() -> readAmount(statement, 4)));
+                daoBytes = Math.min(daoBytes, allocatedPerCall(() -> dao.getAmountOrZero(4)));
+            }
+
+            assertTrue(daoBytes <= driverBytes + 16, "DAO " + daoBytes + " bytes, driver " + driverBytes);
+        }
+    }
+
+    private static long allocatedPerCall(IntCall call) throws SQLException {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var thread = Thread.currentThread().getId();
+        var sum = 0;
+        var before = threads.getThreadAllocatedBytes(thread);
+        for (var i = 0; i < CALLS; i++) {
+            sum += call.run();
+        }
+        var after = threads.getThreadAllocatedBytes(thread);
+        assertEquals(42 * CALLS, sum);
+        return (after - before) / CALLS;
+    }
+
+    private static int readAmount(PreparedStatement statement, long id) throws SQLException {
+        statement.setLong(1, id);
+        try (var resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private interface IntCall {
+        int run() throws SQLException;
+    }
+}
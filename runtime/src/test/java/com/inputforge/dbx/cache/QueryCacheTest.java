@@ -0,0 +1,72 @@
+package com.inputforge.dbx.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class QueryCacheTest {
+
+    @Test
+    void returnsCachedValues() {
+        var cache = new QueryCache<Long, String>(10, 0);
+        cache.put(1L, "one", cache.generation());
+
+        assertEquals("one", cache.get(1L).value());
+        assertNull(cache.get(2L));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void cachesNullValues() {
+        var cache = new QueryCache<Long, String>(10, 0);
+        cache.put(1L, null, cache.generation());
+
+        var entry = cache.get(1L);
+        assertNotNull(entry);
+        assertNull(entry.value());
+    }
+
+    @Test
+    void dropsValuesLoadedBeforeClear() {
+        var cache = new QueryCache<Long, String>(10, 0);
+        var generation = cache.generation();
+        // A write clears the cache while the stale value is being loaded
+        cache.clear();
+        cache.put(1L, "stale", generation);
+
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.size());
+
+        cache.put(1L, "fresh", cache.generation());
+        assertEquals("fresh", cache.get(1L).value());
+    }
+
+    @Test
+    void clearRemovesEntries() {
+        var cache = new QueryCache<Long, String>(100, 0);
+        for (var i = 0L; i < 50; i++) {
+            cache.put(i, "value", cache.generation());
+        }
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get(7L));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        var cache = new QueryCache<Long, String>(2, 0);
+        cache.put(1L, "one", cache.generation());
+        cache.put(2L, "two", cache.generation());
+        cache.get(1L);
+        cache.put(3L, "three", cache.generation());
+
+        assertEquals("one", cache.get(1L).value());
+        assertNull(cache.get(2L));
+        assertEquals("three", cache.get(3L).value());
+    }
+}
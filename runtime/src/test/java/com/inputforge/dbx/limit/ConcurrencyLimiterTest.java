@@ -0,0 +1,100 @@
+package com.inputforge.dbx.limit;
+
+import com.inputforge.dbx.ConnectionSource;
+import com.inputforge.dbx.DaoFactory;
+import com.inputforge.dbx.DaoOptions;
+import com.inputforge.dbx.TypedValuesDao;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void rejectsCallsOverTheLimitWithoutAQueue() {
+        var limiter = ConcurrencyLimiter.create(Limit.fixed(1));
+        var granted = limiter.acquire();
+
+        assertThrows(LimitExceededException.class, limiter::acquire);
+        assertEquals(1, limiter.rejected());
+
+        limiter.release(granted, null);
+        limiter.release(limiter.acquire(), null);
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void rejectsQueuedCallsAtTheMaximumWait() {
+        var limiter = ConcurrencyLimiter.create(Limit.fixed(1), 1, Duration.ZERO);
+        limiter.acquire();
+
+        assertThrows(LimitExceededException.class, limiter::acquire);
+        assertEquals(0, limiter.queued());
+        assertEquals(1, limiter.rejected());
+    }
+
+    @Test
+    void queuesCallsUntilAPermitIsReleased() {
+        var limiter = ConcurrencyLimiter.create(Limit.fixed(1), 1, Duration.ofHours(1));
+        var granted = limiter.acquire();
+
+        var queued = CompletableFuture.supplyAsync(limiter::acquire);
+        while (limiter.queued() == 0) {
+            Thread.onSpinWait();
+        }
+        // The queue holds one call, so another is turned away at once
+        assertThrows(LimitExceededException.class, limiter::acquire);
+
+        limiter.release(granted, null);
+        limiter.release(queued.join(), null);
+        assertEquals(0, limiter.inFlight());
+        assertEquals(0, limiter.queued());
+        assertEquals(1, limiter.rejected());
+    }
+
+    @Test
+    void aimdShrinksOnOverloadAndGrowsWhenInUse() {
+        var limiter = ConcurrencyLimiter.create(Limit.aimd(10, 1, 20, Duration.ofHours(1)));
+
+        limiter.release(limiter.acquire(), new SQLTimeoutException("timed out"));
+        assertEquals(9, limiter.limit());
+
+        var granted = new long[5];
+        for (var i = 0; i < granted.length; i++) {
+            granted[i] = limiter.acquire();
+        }
+        limiter.release(granted[0], null);
+        assertEquals(10, limiter.limit());
+    }
+
+    @Test
+    void streamsHoldTheirPermitUntilClosed() throws SQLException {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:limit-" + UUID.randomUUID());
+        try (var connection = dataSource.getConnection()) {
+            try (var statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE typed_values (id BIGINT PRIMARY KEY, amount INT, "
+                        + "ratio DOUBLE PRECISION, active BOOLEAN, label VARCHAR(50), price DECIMAL(10, 2), "
+                        + "created_at TIMESTAMP)");
+            }
+            var limiter = ConcurrencyLimiter.create(Limit.fixed(1));
+            var dao = DaoFactory.create(TypedValuesDao.class, ConnectionSource.of(dataSource),
+                    DaoOptions.defaults().limiter(limiter));
+
+            var labels = dao.streamLabels();
+            assertEquals(1, limiter.inFlight());
+            assertThrows(LimitExceededException.class, dao::streamLabels);
+
+            labels.close();
+            assertEquals(0, limiter.inFlight());
+        }
+    }
+}
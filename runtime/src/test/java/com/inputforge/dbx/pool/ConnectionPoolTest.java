@@ -0,0 +1,106 @@
+package com.inputforge.dbx.pool;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+    private ConnectionPool pool;
+
+    @AfterEach
+    void close() {
+        pool.close();
+    }
+
+    @Test
+    void reusesReturnedConnections() throws SQLException {
+        pool = ConnectionPool.create(dataSource(), PoolOptions.defaults().maxSize(2));
+
+        var first = pool.acquire();
+        pool.release(first);
+        var second = pool.acquire();
+        pool.release(second);
+
+        assertSame(first, second);
+        assertEquals(1, pool.metrics().created());
+        assertEquals(1, pool.metrics().idle());
+        assertEquals(0, pool.metrics().active());
+    }
+
+    @Test
+    void timesOutWhenExhausted() throws SQLException {
+        pool = ConnectionPool.create(dataSource(), PoolOptions.defaults().maxSize(1).maxWait(Duration.ZERO));
+
+        var held = pool.acquire();
+        assertThrows(SQLTransientConnectionException.class, pool::acquire);
+        assertEquals(1, pool.metrics().timeouts());
+        assertEquals(1, pool.metrics().active());
+
+        pool.release(held);
+        pool.release(pool.acquire());
+        assertEquals(1, pool.metrics().created());
+    }
+
+    @Test
+    void discardsConnectionsClosedWhileBorrowed() throws SQLException {
+        pool = ConnectionPool.create(dataSource(), PoolOptions.defaults().maxSize(1));
+
+        var broken = pool.acquire();
+        broken.connection().close();
+        pool.release(broken);
+
+        assertEquals(0, pool.metrics().idle());
+        var replacement = pool.acquire();
+        assertFalse(replacement.connection().isClosed());
+        assertEquals(2, pool.metrics().created());
+        pool.release(replacement);
+    }
+
+    @Test
+    void evictsIdleConnectionsAboveMinIdle() throws SQLException, InterruptedException {
+        pool = ConnectionPool.create(dataSource(),
+                PoolOptions.defaults().maxSize(3).minIdle(1).idleTimeout(Duration.ofMillis(1)));
+        var first = pool.acquire();
+        var second = pool.acquire();
+        var third = pool.acquire();
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+
+        // Only needs the connections to have been idle for longer than the timeout
+        Thread.sleep(10);
+        pool.evictIdle();
+
+        assertEquals(2, pool.metrics().evicted());
+        assertEquals(1, pool.metrics().idle());
+    }
+
+    @Test
+    void refusesCallsOnceClosed() throws SQLException {
+        pool = ConnectionPool.create(dataSource());
+        var held = pool.acquire();
+        pool.close();
+
+        pool.release(held);
+        assertTrue(held.connection().isClosed());
+        assertEquals(0, pool.metrics().idle());
+        assertThrows(SQLException.class, pool::acquire);
+    }
+
+    private static JdbcDataSource dataSource() {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:pool-" + UUID.randomUUID());
+        return dataSource;
+    }
+}
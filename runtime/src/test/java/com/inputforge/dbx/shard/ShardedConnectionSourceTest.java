@@ -0,0 +1,116 @@
+package com.inputforge.dbx.shard;
+
+import com.inputforge.dbx.ConnectionSource;
+import com.inputforge.dbx.DaoFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardedConnectionSourceTest {
+    // Even ids on the first shard, odd ids on the second
+    private static final ShardRouter BY_PARITY = (key, shards) -> (int) ((Long) key % shards);
+
+    private Connection even;
+    private Connection odd;
+    private ShardedConnectionSource connections;
+    private ShardedValuesDao dao;
+
+    @BeforeEach
+    void createShards() throws SQLException {
+        var evenData = dataSource("even");
+        var oddData = dataSource("odd");
+        // Held open for the whole test, since an in-memory database closes with its last connection
+        even = evenData.getConnection();
+        odd = oddData.getConnection();
+        createTable(even);
+        createTable(odd);
+
+        connections = ShardedConnectionSource.create(
+                List.of(ConnectionSource.of(evenData), ConnectionSource.of(oddData)), BY_PARITY);
+        dao = DaoFactory.create(ShardedValuesDao.class, connections);
+        dao.insert(1, 10, "one");
+        dao.insert(2, 20, "two");
+        dao.insert(3, 30, "three");
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connections.close();
+        even.close();
+        odd.close();
+    }
+
+    @Test
+    void routesKeyedCallsToTheirShard() throws SQLException {
+        assertEquals("two", dao.getLabel(2));
+        assertEquals(1, count(even));
+        assertEquals(2, count(odd));
+    }
+
+    @Test
+    void mergesTheResultsOfAllShards() {
+        assertEquals(3, dao.count());
+        assertEquals(Set.of("one", "two", "three"), new HashSet<>(dao.getLabels()));
+        assertEquals(20, dao.getAmountByLabel("two"));
+        assertNull(dao.getAmountByLabel("four"));
+    }
+
+    @Test
+    void scatterInsideATransactionSeesItsWrites() throws SQLException {
+        var shard = connections.shard(4L);
+        var seen = shard.inTransaction(() -> {
+            dao.insert(4, 40, "four");
+            // Runs on the calling thread, so the transaction's shard reads its uncommitted row
+            return dao.count();
+        });
+
+        assertEquals(4, seen);
+        assertEquals(2, count(even));
+    }
+
+    @Test
+    void scatterInsideARolledBackTransactionLeavesNoTrace() throws SQLException {
+        var shard = connections.shard(4L);
+        assertThrows(IllegalStateException.class, () -> shard.inTransaction(() -> {
+            dao.insert(4, 40, "four");
+            assertEquals(40, dao.getAmountByLabel("four"));
+            throw new IllegalStateException("rolled back");
+        }));
+
+        assertEquals(3, dao.count());
+        assertEquals(1, count(even));
+    }
+
+    private static JdbcDataSource dataSource(String name) {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + UUID.randomUUID());
+        return dataSource;
+    }
+
+    private static void createTable(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE typed_values (id BIGINT PRIMARY KEY, amount INT, ratio DOUBLE PRECISION, "
+                    + "active BOOLEAN, label VARCHAR(50), price DECIMAL(10, 2), created_at TIMESTAMP)");
+        }
+    }
+
+    private static int count(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement();
+             var resultSet = statement.executeQuery("SELECT count(*) FROM typed_values")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
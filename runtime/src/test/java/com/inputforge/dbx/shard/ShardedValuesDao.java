@@ -0,0 +1,26 @@
+package com.inputforge.dbx.shard;
+
+import com.inputforge.dbx.Dao;
+import com.inputforge.dbx.Query;
+import com.inputforge.dbx.ShardKey;
+
+import java.util.List;
+
+@Dao
+public interface ShardedValuesDao {
+
+    @Query("INSERT INTO typed_values (id, amount, label) VALUES (?, ?, ?)")
+    int insert(@ShardKey long id, int amount, String label);
+
+    @Query("SELECT label FROM typed_values WHERE id = ?")
+    String getLabel(@ShardKey long id);
+
+    @Query("SELECT count(*) FROM typed_values")
+    long count();
+
+    @Query("SELECT label FROM typed_values")
+    List<String> getLabels();
+
+    @Query("SELECT amount FROM typed_values WHERE label = ?")
+    Integer getAmountByLabel(String label);
+}
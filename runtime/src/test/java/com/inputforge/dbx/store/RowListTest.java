@@ -0,0 +1,95 @@
+package com.inputforge.dbx.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowListTest {
+    private static final int ROWS = 1000;
+
+    private Connection connection;
+    private Path spillDirectory;
+
+    @BeforeEach
+    void open() throws SQLException, IOException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:");
+        spillDirectory = Files.createTempDirectory("dbx-rows-test");
+    }
+
+    @AfterEach
+    void close() throws SQLException, IOException {
+        connection.close();
+        Files.deleteIfExists(spillDirectory);
+    }
+
+    @Test
+    void keepsRowsWithinTheBudgetInMemory() throws SQLException, IOException {
+        try (var rows = read(Long.MAX_VALUE)) {
+            assertFalse(rows.isSpilled());
+            assertRows(rows);
+        }
+        assertEquals(0, spillFiles());
+    }
+
+    @Test
+    void spillsRowsPastTheBudget() throws SQLException, IOException {
+        try (var rows = read(0)) {
+            assertTrue(rows.isSpilled());
+            assertRows(rows);
+        }
+        assertEquals(0, spillFiles());
+    }
+
+    @Test
+    void refusesReadsOnceClosed() throws SQLException, IOException {
+        var rows = read(0);
+        rows.close();
+
+        assertThrows(IllegalStateException.class, () -> rows.get(0));
+        assertEquals(ROWS, rows.size());
+    }
+
+    private RowList read(long memoryBudget) throws SQLException {
+        try (var statement = connection.createStatement();
+             var resultSet = statement.executeQuery("SELECT X AS id, "
+                     + "CASE WHEN MOD(X, 10) = 0 THEN NULL ELSE CONCAT('row ', X) END AS label "
+                     + "FROM SYSTEM_RANGE(1, " + ROWS + ")")) {
+            return RowList.read(resultSet, 0, memoryBudget, spillDirectory);
+        }
+    }
+
+    private static void assertRows(RowList rows) {
+        assertEquals(ROWS, rows.size());
+        assertEquals(2, rows.columnIndex("label"));
+        for (var i = 0; i < ROWS; i++) {
+            var row = rows.get(i);
+            var id = i + 1L;
+            assertEquals(id, row.getLong(1));
+            if (id % 10 == 0) {
+                assertTrue(row.isNull(2));
+                assertNull(row.getString(2));
+            } else {
+                assertEquals("row " + id, row.getString(2));
+            }
+        }
+    }
+
+    private long spillFiles() throws IOException {
+        try (var files = Files.list(spillDirectory)) {
+            return files.count();
+        }
+    }
+}
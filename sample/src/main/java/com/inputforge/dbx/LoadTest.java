@@ -0,0 +1,265 @@
+package com.inputforge.dbx;
+
+import com.inputforge.dbx.pool.ConnectionPool;
+import com.inputforge.dbx.pool.PoolOptions;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Closed-loop load generator for {@link UserDao}. Every worker issues one call at a time; with a
+ * target rate each worker follows a fixed schedule, and latency is measured from the time a call
+ * was due rather than when it started, so stalls are not hidden by coordinated omission.
+ */
+public final class LoadTest {
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+    private final Config config;
+
+    public LoadTest(Config config) {
+        this.config = config;
+    }
+
+    public Report run() throws Exception {
+        var dataSource = SampleDatabase.create(config.users);
+        try (var pool = ConnectionPool.create(dataSource, PoolOptions.defaults().maxSize(config.poolSize))) {
+            var dao = DaoFactory.create(UserDao.class, pool);
+            var workers = config.threads + config.virtualThreads;
+            // Each worker runs its share of the target rate
+            var interval = config.rate > 0 ? TimeUnit.SECONDS.toNanos(workers) / config.rate : 0;
+
+            var start = System.nanoTime();
+            var measureFrom = start + config.warmup.toNanos();
+            var end = measureFrom + config.duration.toNanos();
+
+            var platform = Executors.newFixedThreadPool(Math.max(config.threads, 1), daemonThreads());
+            var virtual = DaoExecutors.newThreadPerTaskExecutor();
+            var results = new ArrayList<Future<Worker>>();
+            try {
+                for (int i = 0; i < workers; i++) {
+                    // Stagger the schedules so workers do not fire in lockstep
+                    var worker = new Worker(dao, config.users, start + interval * i / workers, interval,
+                            measureFrom, end);
+                    results.add((i < config.threads ? platform : virtual).submit(worker::run, worker));
+                }
+                return report(results, pool);
+            } finally {
+                platform.shutdownNow();
+                virtual.shutdownNow();
+            }
+        }
+    }
+
+    private Report report(List<Future<Worker>> results, ConnectionPool pool)
+            throws InterruptedException, ExecutionException {
+        var corrected = new Histogram(HIGHEST_LATENCY, 3);
+        var service = new Histogram(HIGHEST_LATENCY, 3);
+        var errors = 0L;
+        for (var result : results) {
+            var worker = result.get();
+            corrected.add(worker.corrected);
+            service.add(worker.service);
+            errors += worker.errors;
+        }
+        return new Report(config, corrected, service, errors, pool.metrics().toString());
+    }
+
+    private static java.util.concurrent.ThreadFactory daemonThreads() {
+        var count = new AtomicInteger();
+        return task -> {
+            var thread = new Thread(task, "load-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Worker {
+        private final UserDao dao;
+        private final int users;
+        private final long interval;
+        private final long measureFrom;
+        private final long end;
+        private final Histogram corrected = new Histogram(HIGHEST_LATENCY, 3);
+        private final Histogram service = new Histogram(HIGHEST_LATENCY, 3);
+        private long next;
+        private long errors;
+
+        Worker(UserDao dao, int users, long first, long interval, long measureFrom, long end) {
+            this.dao = dao;
+            this.users = users;
+            this.next = first;
+            this.interval = interval;
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        void run() {
+            var random = ThreadLocalRandom.current();
+            while (true) {
+                long due;
+                if (interval > 0) {
+                    due = next;
+                    next += interval;
+                    parkUntil(due);
+                } else {
+                    due = System.nanoTime();
+                }
+                if (due >= end || Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                var started = System.nanoTime();
+                var failed = false;
+                try {
+                    call(random.nextInt(100), random.nextLong(1, users + 1));
+                } catch (RuntimeException e) {
+                    failed = true;
+                }
+                var finished = System.nanoTime();
+
+                if (due >= measureFrom) {
+                    corrected.recordValue(Math.min(finished - due, HIGHEST_LATENCY));
+                    service.recordValue(Math.min(finished - started, HIGHEST_LATENCY));
+                    if (failed) {
+                        errors++;
+                    }
+                }
+            }
+        }
+
+        // 80% point reads, 15% counts, 5% updates
+        private void call(int operation, long id) {
+            if (operation < 80) {
+                dao.getUserById(id);
+            } else if (operation < 95) {
+                dao.countUserById(id);
+            } else {
+                dao.setActive(operation % 2 == 0, id);
+            }
+        }
+
+        private static void parkUntil(long deadline) {
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+    }
+
+    public static final class Config {
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int virtualThreads = 0;
+        private long rate = 0;
+        private Duration duration = Duration.ofSeconds(30);
+        private Duration warmup = Duration.ofSeconds(5);
+        private int poolSize = 10;
+        private int users = 10_000;
+
+        /**
+         * Parses {@code --name=value} arguments: threads, virtual-threads, rate (calls per second,
+         * 0 for as fast as possible), duration and warmup (seconds), pool-size and users.
+         */
+        public static Config parse(String... args) {
+            var config = new Config();
+            for (var arg : args) {
+                var separator = arg.indexOf('=');
+                if (!arg.startsWith("--") || separator < 0) {
+                    throw new IllegalArgumentException("Expected --name=value but got " + arg);
+                }
+                var value = arg.substring(separator + 1);
+                switch (arg.substring(2, separator)) {
+                    case "threads":
+                        config.threads = Integer.parseInt(value);
+                        break;
+                    case "virtual-threads":
+                        config.virtualThreads = Integer.parseInt(value);
+                        break;
+                    case "rate":
+                        config.rate = Long.parseLong(value);
+                        break;
+                    case "duration":
+                        config.duration = Duration.ofSeconds(Long.parseLong(value));
+                        break;
+                    case "warmup":
+                        config.warmup = Duration.ofSeconds(Long.parseLong(value));
+                        break;
+                    case "pool-size":
+                        config.poolSize = Integer.parseInt(value);
+                        break;
+                    case "users":
+                        config.users = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            if (config.threads + config.virtualThreads < 1) {
+                throw new IllegalArgumentException("At least one worker is required");
+            }
+            return config;
+        }
+
+        @Override
+        public String toString() {
+            return "threads=" + threads
+                    + ", virtualThreads=" + virtualThreads
+                    + (virtualThreads > 0 && !DaoExecutors.usesVirtualThreads()
+                    ? " (platform threads before Java 21)" : "")
+                    + ", rate=" + (rate > 0 ? rate + "/s" : "unbounded")
+                    + ", duration=" + duration.toSeconds() + "s"
+                    + ", warmup=" + warmup.toSeconds() + "s"
+                    + ", poolSize=" + poolSize
+                    + ", users=" + users;
+        }
+    }
+
+    public static final class Report {
+        private final Config config;
+        private final Histogram corrected;
+        private final Histogram service;
+        private final long errors;
+        private final String pool;
+
+        Report(Config config, Histogram corrected, Histogram service, long errors, String pool) {
+            this.config = config;
+            this.corrected = corrected;
+            this.service = service;
+            this.errors = errors;
+            this.pool = pool;
+        }
+
+        public double throughput() {
+            return corrected.getTotalCount() / (double) config.duration.toSeconds();
+        }
+
+        @Override
+        public String toString() {
+            return "config:     " + config + "\n"
+                    + String.format("throughput: %.1f calls/s, %d errors%n", throughput(), errors)
+                    + "latency:    " + percentiles(corrected) + "\n"
+                    + "service:    " + percentiles(service) + "\n"
+                    + "pool:       " + pool;
+        }
+
+        private static String percentiles(Histogram histogram) {
+            return String.format("p50=%dus p99=%dus p999=%dus max=%dus",
+                    micros(histogram.getValueAtPercentile(50)),
+                    micros(histogram.getValueAtPercentile(99)),
+                    micros(histogram.getValueAtPercentile(99.9)),
+                    micros(histogram.getMaxValue()));
+        }
+
+        private static long micros(long nanos) {
+            return TimeUnit.NANOSECONDS.toMicros(nanos);
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package com.inputforge.dbx;
 
 public class Main {
-    public static void main(String[] args) {
-        System.out.println("Hello world!");
+    public static void main(String[] args) throws Exception {
+        var config = LoadTest.Config.parse(args);
+        System.out.println(new LoadTest(config).run());
     }
-}
\ No newline at end of file
+}
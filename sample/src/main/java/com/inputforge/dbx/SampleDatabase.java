@@ -0,0 +1,58 @@
+package com.inputforge.dbx;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * In-memory H2 database with the {@code users} table {@link UserDao} expects.
+ */
+final class SampleDatabase {
+    private SampleDatabase() {
+    }
+
+    static DataSource create(int users) throws SQLException {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:sample;DB_CLOSE_DELAY=-1");
+
+        try (var connection = dataSource.getConnection()) {
+            try (var statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS users");
+                statement.execute("CREATE TABLE users ("
+                        + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                        + "first_name VARCHAR(64), "
+                        + "last_name VARCHAR(64), "
+                        + "email VARCHAR(128), "
+                        + "password VARCHAR(128), "
+                        + "is_active BOOLEAN, "
+                        + "is_deleted BOOLEAN, "
+                        + "created_at TIMESTAMP, "
+                        + "updated_at TIMESTAMP)");
+            }
+
+            try (var insert = connection.prepareStatement("INSERT INTO users "
+                    + "(first_name, last_name, email, password, is_active, is_deleted, created_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                var createdAt = Timestamp.from(Instant.now());
+                for (int i = 1; i <= users; i++) {
+                    insert.setString(1, "First" + i);
+                    insert.setString(2, "Last" + i);
+                    insert.setString(3, "user" + i + "@example.com");
+                    insert.setString(4, "secret");
+                    insert.setBoolean(5, i % 2 == 0);
+                    insert.setBoolean(6, false);
+                    insert.setTimestamp(7, createdAt);
+                    insert.addBatch();
+                    if (i % 1000 == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+        }
+        return dataSource;
+    }
+}
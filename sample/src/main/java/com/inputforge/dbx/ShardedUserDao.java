@@ -0,0 +1,33 @@
+package com.inputforge.dbx;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@Dao
+public interface ShardedUserDao {
+
+    @Query("SELECT * FROM users WHERE id = ?")
+    User getUserById(@ShardKey long id);
+
+    @Query("SELECT * FROM users WHERE email = ?")
+    User getUserByEmail(String email);
+
+    @Query("SELECT count(*) FROM users")
+    long countUsers();
+
+    @Query("SELECT max(id) FROM users")
+    Long getMaxUserId();
+
+    @Query("SELECT * FROM users WHERE is_active = ?")
+    List<User> getUsersByActive(boolean isActive);
+
+    @Query("SELECT * FROM users WHERE is_active = ?")
+    CompletableFuture<List<User>> getUsersByActiveAsync(boolean isActive);
+
+    @Query("UPDATE users SET is_active = ? WHERE id = ?")
+    int setActive(boolean isActive, @ShardKey long id);
+
+    @Query("UPDATE users SET is_deleted = TRUE WHERE is_active = FALSE")
+    int deleteInactive();
+
+}
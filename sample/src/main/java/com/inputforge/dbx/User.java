@@ -3,6 +3,7 @@ package com.inputforge.dbx;
 import java.time.Instant;
 import java.util.Objects;
 
+@Columnar
 public final class User {
     private final long id;
     private final String firstName;
@@ -1,18 +1,83 @@
 package com.inputforge.dbx;
 
-import java.sql.ResultSet;
+import com.inputforge.dbx.collection.LongHashSet;
+import com.inputforge.dbx.store.RowList;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 @Dao
 public interface UserDao {
 
+    @Hedged
+    @Query("SELECT * FROM users WHERE id = ?")
+    User getUserById(long id);
+
+    @Query("SELECT * FROM users WHERE id = ?")
+    CompletableFuture<User> getUserByIdAsync(long id);
+
+    @Coalesce(maxBatch = 64)
     @Query("SELECT * FROM users WHERE id = ?")
-    ResultSet getUserById(long id);
+    CompletableFuture<User> loadUser(long id);
 
     @Query("SELECT count(*) FROM users WHERE id = ?")
     int countUserById(long id);
 
+    @Query("SELECT * FROM users WHERE id IN (?)")
+    List<User> getUsersByIds(Collection<Long> ids);
+
+    @MapKey("id")
+    @Query("SELECT * FROM users WHERE id IN (?)")
+    Map<Long, User> getUsersById(Collection<Long> ids);
+
+    @MapKey("email")
+    @Query(value = "SELECT email, id FROM users WHERE is_active = ?", expectedRows = 1000)
+    Map<String, List<Long>> getUserIdsByEmail(boolean isActive);
+
+    @SingleFlight
     @Query("SELECT id FROM users")
     List<Integer> getUserIds();
 
+    @Query(value = "SELECT id FROM users", expectedRows = 10_000)
+    long[] getAllUserIds();
+
+    @Query("SELECT id FROM users WHERE is_active = ?")
+    LongHashSet getUserIdsByActive(boolean isActive);
+
+    @Cached(maxSize = 2, ttl = 1, unit = TimeUnit.MINUTES)
+    @Query("SELECT * FROM users WHERE is_active = ?")
+    List<User> getUsersByActive(boolean isActive);
+
+    @Query(value = "SELECT * FROM users", fetchSize = 500)
+    Stream<User> streamUsers();
+
+    @Query(value = "SELECT * FROM users", expectedRows = 100_000)
+    RowList exportUsers();
+
+    @Query("SELECT * FROM users WHERE is_active = ?")
+    UserColumns getUserColumns(boolean isActive);
+
+    @Query("INSERT INTO users (first_name, last_name, email, password, is_active, is_deleted, created_at, updated_at) "
+            + "VALUES (:firstName, :lastName, :email, :password, :isActive, :isDeleted, :createdAt, :updatedAt)")
+    @Batch
+    @GeneratedKeys("id")
+    long[] insertUsers(List<User> users);
+
+    @Query("UPDATE users SET is_active = ? WHERE id = ?")
+    int setActive(boolean isActive, long id);
+
+    @Query("UPDATE users SET is_active = ? WHERE id = ?")
+    CompletableFuture<Void> setActiveAsync(boolean isActive, long id);
+
+    @Query("UPDATE users SET is_active = ? WHERE id IN (?) AND is_deleted = ?")
+    int setActiveByIds(boolean isActive, List<Long> ids, boolean isDeleted);
+
+    @Query("DELETE FROM users WHERE id = ?")
+    @Batch(size = 500)
+    int[] deleteUsers(Collection<Long> ids);
+
 }